@@ -0,0 +1,43 @@
+package algoritimo;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Executa os benchmarks com as opcoes da linha de comando do JMH, acrescentando por
+ * padrao o profiler de alocacao ({@code -prof gc}) e a exportacao dos resultados para
+ * {@code jmh-result.json}, usado para comparar versoes.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesBenchmarkRunner {
+
+    private DesBenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linha = new CommandLineOptions(args);
+        if (linha.shouldHelp() || linha.shouldList() || linha.shouldListWithParams()
+                || linha.shouldListProfilers() || linha.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder opcoes = new OptionsBuilder();
+        opcoes.parent(linha);
+        if (linha.getProfilers().isEmpty()) {
+            opcoes.addProfiler(GCProfiler.class);
+        }
+        if (!linha.getResultFormat().hasValue()) {
+            opcoes.resultFormat(ResultFormatType.JSON);
+        }
+        if (!linha.getResult().hasValue()) {
+            opcoes.result("jmh-result.json");
+        }
+        new Runner(opcoes.build()).run();
+    }
+}
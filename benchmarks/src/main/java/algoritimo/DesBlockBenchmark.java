@@ -0,0 +1,73 @@
+package algoritimo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de um unico bloco: a API original em binario ({@link CryptoDES#DES}) e o
+ * motor compactado em {@code long}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DesBlockBenchmark {
+
+    private long bloco = 0x0123456789ABCDEFL;
+    private long chave = 0x133457799BBCDFF1L;
+
+    private int[] textoSimples;
+    private int[] chaveBits;
+    private long[] kn;
+    private DesKeySchedule ks;
+    private TripleDesKeySchedule ks3;
+
+    @Setup
+    public void setup() {
+        textoSimples = DesEngine.paraBits(bloco, new int[64]);
+        chaveBits = DesEngine.paraBits(chave, new int[64]);
+        kn = DesEngine.gerarChavesPorRodada(chave);
+        ks = DesKeySchedule.of(chave);
+        ks3 = TripleDesKeySchedule.of(chave, ~chave);
+    }
+
+    @Benchmark
+    public int[] cryptoDes() {
+        return CryptoDES.DES(textoSimples, chaveBits);
+    }
+
+    @Benchmark
+    public int[] cryptoDesKeySchedule() {
+        return CryptoDES.DES(textoSimples, ks);
+    }
+
+    @Benchmark
+    public long encryptBlock() {
+        return DesEngine.encryptBlock(bloco, kn);
+    }
+
+    @Benchmark
+    public long decryptBlock() {
+        return DesEngine.decryptBlock(bloco, kn);
+    }
+
+    @Benchmark
+    public long tripleDesEncrypt() {
+        return ks3.encrypt(bloco);
+    }
+}
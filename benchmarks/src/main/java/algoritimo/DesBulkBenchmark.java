@@ -0,0 +1,93 @@
+package algoritimo;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vazao dos modos de operacao para cada algoritmo e implementacao. O contador
+ * {@code bytes} e reportado em bytes por segundo.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DesBulkBenchmark {
+
+    @Param({"DES", "DESede"})
+    public String algoritmo;
+
+    @Param({"ECB", "CBC", "CTR"})
+    public DesMode modo;
+
+    @Param({"SCALAR", "INTERLEAVED", "BITSLICED", "VECTOR"})
+    public DesEngineType engine;
+
+    @Param({"8", "1024", "1048576"})
+    public int tamanho;
+
+    /** Usa {@link DesParallel} no pool comum (sem efeito na criptografia CBC). */
+    @Param({"false"})
+    public boolean paralelo;
+
+    private DesBlockCipher cifra;
+    private DesParallel bulk;
+    private byte[] entrada;
+    private byte[] saida;
+
+    /**
+     * Bytes processados, reportados pelo JMH como taxa por segundo.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Contador {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        long chave = 0x133457799BBCDFF1L;
+        cifra = "DES".equals(algoritmo) ? engine.criar(DesKeySchedule.of(chave))
+                                        : engine.criar(TripleDesKeySchedule.of(chave, ~chave));
+        bulk = paralelo ? new DesParallel() : new DesParallel(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        entrada = new byte[tamanho];
+        saida = new byte[tamanho];
+        new Random(1).nextBytes(entrada);
+    }
+
+    @Benchmark
+    public byte[] encrypt(Contador contador) {
+        contador.bytes += bulk.encrypt(modo, DesPadding.NONE, cifra, 1L, entrada, 0, tamanho, saida, 0);
+        return saida;
+    }
+
+    @Benchmark
+    public byte[] decrypt(Contador contador) {
+        contador.bytes += bulk.decrypt(modo, DesPadding.NONE, cifra, 1L, entrada, 0, tamanho, saida, 0);
+        return saida;
+    }
+}
@@ -0,0 +1,58 @@
+package algoritimo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo de gerar as chaves por rodada, com e sem o {@link DesKeyScheduleCache}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DesKeyScheduleBenchmark {
+
+    private long chave = 0x133457799BBCDFF1L;
+    private DesKeyScheduleCache cache;
+
+    @Setup
+    public void setup() {
+        cache = new DesKeyScheduleCache(256);
+        cache.get(chave);
+    }
+
+    @Benchmark
+    public long[] gerarChavesPorRodada() {
+        return DesEngine.gerarChavesPorRodada(chave);
+    }
+
+    @Benchmark
+    public DesKeySchedule desKeySchedule() {
+        return DesKeySchedule.of(chave);
+    }
+
+    @Benchmark
+    public DesKeySchedule cacheHit() {
+        return cache.get(chave);
+    }
+
+    @Benchmark
+    public TripleDesKeySchedule tripleDesKeySchedule() {
+        return TripleDesKeySchedule.of(chave, ~chave, chave ^ 0x0101010101010101L);
+    }
+}
@@ -0,0 +1,63 @@
+package algoritimo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Funcao de rodada: a funcao mangler com as tabelas SP, e uma passada completa do
+ * motor bitsliced (64 blocos, 16 rodadas) com a transposicao.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DesRoundBenchmark {
+
+    private int r = 0xF0AAF0AA;
+    private long k = 0x1B02EFFC7072L;
+
+    private final long[] fatias = new long[64];
+    private final long[] l = new long[32];
+    private final long[] rr = new long[32];
+    private final long[] chaves = new long[16 * 48];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 64; i++) {
+            fatias[i] = 0x9E3779B97F4A7C15L * (i + 1);
+        }
+        DesBitsliced.fatiarChaves(DesEngine.gerarChavesPorRodada(0x133457799BBCDFF1L), chaves);
+    }
+
+    @Benchmark
+    public int mangler() {
+        return DesEngine.mangler(r, k);
+    }
+
+    @Benchmark
+    public long[] transpor() {
+        DesBitsliced.transpor(fatias);
+        return fatias;
+    }
+
+    @Benchmark
+    public long[] bitslicedPassada() {
+        DesBitsliced.cifrarFatias(fatias, l, rr, chaves);
+        return fatias;
+    }
+}
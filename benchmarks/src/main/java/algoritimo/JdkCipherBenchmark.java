@@ -0,0 +1,74 @@
+package algoritimo;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Linha de base: o DES via {@link Cipher}, com os mesmos tamanhos de
+ * {@link DesBulkBenchmark} para comparar as vazoes. O parametro {@code provider} compara
+ * o provedor da JDK ({@code SunJCE}) com {@link DesProvider}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JdkCipherBenchmark {
+
+    @Param({"DES/ECB/NoPadding", "DES/CBC/NoPadding", "DES/CTR/NoPadding", "DESede/ECB/NoPadding"})
+    public String transformacao;
+
+    @Param({"8", "1024", "1048576"})
+    public int tamanho;
+
+    @Param({"SunJCE", DesProvider.NOME})
+    public String provider;
+
+    private Cipher cipher;
+    private byte[] entrada;
+    private byte[] saida;
+
+    @Setup
+    public void setup() throws Exception {
+        String algoritmo = transformacao.substring(0, transformacao.indexOf('/'));
+        byte[] chave = new byte["DES".equals(algoritmo) ? 8 : 24];
+        new Random(2).nextBytes(chave);
+        cipher = DesProvider.NOME.equals(provider) ? Cipher.getInstance(transformacao, new DesProvider())
+                                                   : Cipher.getInstance(transformacao, provider);
+        if (transformacao.contains("/ECB/")) {
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(chave, algoritmo));
+        } else {
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(chave, algoritmo), new IvParameterSpec(new byte[8]));
+        }
+        entrada = new byte[tamanho];
+        saida = new byte[tamanho];
+        new Random(1).nextBytes(entrada);
+    }
+
+    @Benchmark
+    public int encrypt(DesBulkBenchmark.Contador contador) throws Exception {
+        int n = cipher.doFinal(entrada, 0, tamanho, saida, 0);
+        contador.bytes += n;
+        return n;
+    }
+}
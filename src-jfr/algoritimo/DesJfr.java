@@ -0,0 +1,109 @@
+package algoritimo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de JDK Flight Recorder das operacoes em massa, carregados por
+ * {@link DesMetrics} quando a JVM tem o modulo {@code jdk.jfr}. Compilado com
+ * {@code --release 11}, separado do restante do codigo (Java 8).
+ * <p>
+ * Criar esta classe nao toca no JFR; o listener e o tipo do evento sao obtidos quando
+ * {@link DesMetrics} pede ({@link #escutar()}, {@link #ativa()}).
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+final class DesJfr implements DesMetrics.Sonda {
+
+    @Name("algoritimo.DesOperacao")
+    @Label("DES Operation")
+    @Category({ "Algoritimo", "DES" })
+    @Description("Operacao em massa de criptografia ou descriptografia DES")
+    @StackTrace(false)
+    static final class Operacao extends Event {
+
+        @Label("Operation")
+        String operacao;
+
+        @Label("Mode")
+        String modo;
+
+        @Label("Engine")
+        String engine;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Blocks")
+        long blocos;
+    }
+
+    /**
+     * Obtido somente com o Flight Recorder ja iniciado: registrar o tipo do evento antes
+     * disso inicializaria o JFR na JVM inteira (centenas de milissegundos).
+     */
+    private volatile EventType tipo;
+    private boolean escutando;
+
+    @Override
+    public boolean iniciado() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Override
+    public synchronized void escutar() {
+        if (!escutando) {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recordingStateChanged(Recording recording) {
+                    DesMetrics.atualizarJfr();
+                }
+            });
+            escutando = true;
+        }
+    }
+
+    @Override
+    public boolean ativa() {
+        if (!FlightRecorder.isInitialized()) {
+            return false;
+        }
+        EventType t = tipo;
+        if (t == null) {
+            tipo = t = EventType.getEventType(Operacao.class);
+        }
+        return t.isEnabled();
+    }
+
+    @Override
+    public Object iniciar() {
+        Operacao evento = new Operacao();
+        evento.begin();
+        return evento;
+    }
+
+    @Override
+    public void concluir(Object evento, boolean cifrar, DesMode modo, String engine, long bytes) {
+        Operacao e = (Operacao) evento;
+        e.end();
+        if (e.shouldCommit()) {
+            e.operacao = cifrar ? "encrypt" : "decrypt";
+            e.modo = modo.name();
+            e.engine = engine;
+            e.bytes = bytes;
+            e.blocos = (bytes + 7) >>> 3;
+            e.commit();
+        }
+    }
+}
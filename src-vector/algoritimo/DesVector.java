@@ -0,0 +1,214 @@
+package algoritimo;
+
+import static jdk.incubator.vector.VectorOperators.AND;
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.ROR;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementacao do DES com a Vector API ({@code jdk.incubator.vector}), que cifra um
+ * bloco independente em cada lane.
+ * <p>
+ * As metades L e R dos blocos ficam em dois {@link IntVector} da especie preferida da
+ * maquina, que precisa ter ao menos {@link #LANES_MINIMO} lanes (AVX-512). As permutacoes
+ * IP e IP^-1 sao as mesmas trocas de bits de {@link DesEngine}, feitas em todas as lanes
+ * por instrucao. Cada tabela SP cabe em 4 vetores, e a consulta de cada rodada e feita
+ * com permutacoes entre lanes ({@code rearrange}) em vez de gathers, que o JDK 17 nao
+ * compila para instrucoes vetoriais. Grupos incompletos e blocos isolados sao delegados
+ * a implementacao escalar.
+ * <p>
+ * Compilado com {@code --release 17 --add-modules jdk.incubator.vector}, separado do
+ * restante do codigo (Java 8), e carregado por {@link DesEngineType#VECTOR} somente
+ * quando a JVM foi iniciada com {@code --add-modules jdk.incubator.vector}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+final class DesVector implements DesBlockCipher {
+
+    /** Especie usada: a mais larga que a maquina executa nativamente. */
+    static final VectorSpecies<Integer> ESPECIE = IntVector.SPECIES_PREFERRED;
+
+    /** Numero de blocos processados por passada. */
+    static final int LANES = ESPECIE.length();
+
+    /**
+     * Menor numero de lanes que compensa em relacao a {@link DesInterleaved}: com 8 lanes
+     * (AVX2) cada consulta precisa de 8 permutacoes e o ganho se perde.
+     */
+    static final int LANES_MINIMO = 16;
+
+    private static final int BITS_LANE = Integer.numberOfTrailingZeros(LANES);
+
+    /** Partes de {@link #LANES} entradas em cada tabela SP de 64 entradas. */
+    private static final int PARTES = 64 / LANES;
+
+    /** Cada tabela SP (64 entradas) em 64 / {@link #LANES} vetores. */
+    private static final int[][] SP = DesEngine.tabelasSp();
+
+    /** Metades L e R dos blocos, por thread. */
+    private static final ThreadLocal<int[][]> TRABALHO = ThreadLocal.withInitial(
+        () -> new int[][] { new int[LANES], new int[LANES] });
+
+    /**
+     * Criada por {@link DesEngineType} por reflexao. Falha ao carregar se a JVM nao tem
+     * o modulo da Vector API ou se a especie preferida e estreita demais.
+     */
+    static final class Fabrica implements DesEngineType.Fabrica {
+
+        Fabrica() {
+            if (LANES < LANES_MINIMO) {
+                throw new UnsupportedOperationException("Especie vetorial estreita demais: " + ESPECIE);
+            }
+        }
+
+        @Override
+        public DesBlockCipher criar(DesKeySchedule ks) {
+            return new DesVector(ks, ks.kn(), ks.knInverso());
+        }
+
+        @Override
+        public DesBlockCipher criar(TripleDesKeySchedule ks) {
+            return new DesVector(ks, ks.kn(), ks.knInverso());
+        }
+    }
+
+    private final DesBlockCipher escalar;
+    private final int[] chaves;
+    private final int[] chavesInversas;
+
+    private DesVector(DesBlockCipher escalar, long[] kn, long[] knInverso) {
+        this.escalar = escalar;
+        this.chaves = separarChaves(kn);
+        this.chavesInversas = separarChaves(knInverso);
+    }
+
+    @Override
+    public long encrypt(long bloco) {
+        return escalar.encrypt(bloco);
+    }
+
+    @Override
+    public long decrypt(long bloco) {
+        return escalar.decrypt(bloco);
+    }
+
+    @Override
+    public void encryptBlocks(long[] blocos, int off, int n) {
+        int i = processar(blocos, off, n, chaves);
+        for (; i < off + n; i++) {
+            blocos[i] = escalar.encrypt(blocos[i]);
+        }
+    }
+
+    @Override
+    public void decryptBlocks(long[] blocos, int off, int n) {
+        int i = processar(blocos, off, n, chavesInversas);
+        for (; i < off + n; i++) {
+            blocos[i] = escalar.decrypt(blocos[i]);
+        }
+    }
+
+    @Override
+    public int blocosPorLote() {
+        return LANES;
+    }
+
+    /**
+     * Separa cada chave por rodada nos 8 valores de 6 bits combinados com as entradas das
+     * S-boxes, na ordem usada por {@link DesEngine#mangler}.
+     */
+    private static int[] separarChaves(long[] kn) {
+        int[] partes = new int[kn.length * 8];
+        for (int i = 0; i < kn.length; i++) {
+            for (int s = 0; s < 8; s++) {
+                partes[8*i + s] = (int) (kn[i] >>> (42 - 6*s)) & 0x3F;
+            }
+        }
+        return partes;
+    }
+
+    /**
+     * Processa os grupos completos de {@link #LANES} blocos.
+     *
+     * @param chaves 8 partes por rodada, 16 rodadas (48 no Triple DES) na ordem em que sao aplicadas
+     * @return       O indice do primeiro bloco nao processado
+     */
+    private static int processar(long[] blocos, int off, int n, int[] chaves) {
+        int fim = off + n - n % LANES;
+        int[][] trabalho = TRABALHO.get();
+        int[] metadeL = trabalho[0];
+        int[] metadeR = trabalho[1];
+        for (int i = off; i < fim; i += LANES) {
+            for (int j = 0; j < LANES; j++) {
+                long b = blocos[i + j];
+                metadeL[j] = (int) (b >>> 32);
+                metadeR[j] = (int) b;
+            }
+            IntVector l = IntVector.fromArray(ESPECIE, metadeL, 0);
+            IntVector r = IntVector.fromArray(ESPECIE, metadeR, 0);
+            IntVector w;
+
+            // IP, como em DesEngine.permutacaoInicial
+            w = troca(l, r, 4, 0x0F0F0F0F);  r = r.lanewise(XOR, w); l = l.lanewise(XOR, w.lanewise(LSHL, 4));
+            w = troca(l, r, 16, 0x0000FFFF); r = r.lanewise(XOR, w); l = l.lanewise(XOR, w.lanewise(LSHL, 16));
+            w = troca(r, l, 2, 0x33333333);  l = l.lanewise(XOR, w); r = r.lanewise(XOR, w.lanewise(LSHL, 2));
+            w = troca(r, l, 8, 0x00FF00FF);  l = l.lanewise(XOR, w); r = r.lanewise(XOR, w.lanewise(LSHL, 8));
+            w = troca(l, r, 1, 0x55555555);  r = r.lanewise(XOR, w); l = l.lanewise(XOR, w.lanewise(LSHL, 1));
+
+            for (int e = 0; e < chaves.length; e += 16*8) {
+                for (int k = e; k < e + 16*8; k += 8) {
+                    // mangler de DesEngine: rotacao de r por S-box, XOR com a chave e consulta a SP;
+                    // cada parte de LANES entradas da tabela e permutada pelos bits baixos do
+                    // indice e escolhida pelos bits altos
+                    IntVector f = IntVector.zero(ESPECIE);
+                    for (int s = 0; s < 8; s++) {
+                        IntVector indice = r.lanewise(ROR, (27 - 4*s) & 31).lanewise(XOR, chaves[k + s]);
+                        VectorShuffle<Integer> posicao = indice.lanewise(AND, LANES - 1).toShuffle();
+                        IntVector parte = indice.lanewise(LSHR, BITS_LANE).lanewise(AND, PARTES - 1);
+                        int[] tabela = SP[s];
+                        IntVector valor = IntVector.fromArray(ESPECIE, tabela, 0).rearrange(posicao);
+                        for (int j = 1; j < PARTES; j++) {
+                            valor = valor.blend(IntVector.fromArray(ESPECIE, tabela, j * LANES).rearrange(posicao),
+                                                parte.eq(j));
+                        }
+                        f = f.or(valor);
+                    }
+                    w = l.lanewise(XOR, f);
+                    l = r;
+                    r = w;
+                }
+                // R16L16: no Triple DES e a entrada do proximo estagio, sem IP^-1 e IP
+                w = l;
+                l = r;
+                r = w;
+            }
+
+            // IP^-1, como em DesEngine.permutacaoFinal
+            w = troca(l, r, 1, 0x55555555);  r = r.lanewise(XOR, w); l = l.lanewise(XOR, w.lanewise(LSHL, 1));
+            w = troca(r, l, 8, 0x00FF00FF);  l = l.lanewise(XOR, w); r = r.lanewise(XOR, w.lanewise(LSHL, 8));
+            w = troca(r, l, 2, 0x33333333);  l = l.lanewise(XOR, w); r = r.lanewise(XOR, w.lanewise(LSHL, 2));
+            w = troca(l, r, 16, 0x0000FFFF); r = r.lanewise(XOR, w); l = l.lanewise(XOR, w.lanewise(LSHL, 16));
+            w = troca(l, r, 4, 0x0F0F0F0F);  r = r.lanewise(XOR, w); l = l.lanewise(XOR, w.lanewise(LSHL, 4));
+
+            l.intoArray(metadeL, 0);
+            r.intoArray(metadeR, 0);
+            for (int j = 0; j < LANES; j++) {
+                blocos[i + j] = ((long) metadeL[j] << 32) | (metadeR[j] & 0xFFFFFFFFL);
+            }
+        }
+        return fim;
+    }
+
+    /**
+     * Os bits a trocar em uma troca de bits: {@code ((a >>> s) ^ b) & mascara}.
+     */
+    private static IntVector troca(IntVector a, IntVector b, int s, int mascara) {
+        return a.lanewise(LSHR, s).lanewise(XOR, b).lanewise(AND, mascara);
+    }
+}
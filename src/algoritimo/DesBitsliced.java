@@ -0,0 +1,654 @@
+package algoritimo;
+
+import java.util.Arrays;
+
+/**
+ * Implementacao bitsliced do DES, que cifra 64 blocos independentes por passada.
+ * <p>
+ * Os blocos sao transpostos de forma que cada uma das 64 posicoes de bit do estado
+ * vire um {@code long} (uma "fatia") contendo aquele bit dos 64 blocos. As S-boxes
+ * sao avaliadas como circuitos de portas logicas sobre as fatias, e as permutacoes
+ * IP, E, P e IP^-1 se tornam apenas indices, sem nenhum custo em tempo de execucao.
+ * <p>
+ * Em {@link #encryptBlocks} e {@link #decryptBlocks} nenhuma operacao depende do valor
+ * dos dados ou da chave (nao ha consultas a tabelas; o ultimo grupo e completado com
+ * zeros), entao o tempo de execucao e constante. Ja {@link #encrypt} e {@link #decrypt},
+ * de um bloco isolado, sao delegados a implementacao escalar ({@link DesKeySchedule} ou
+ * {@link TripleDesKeySchedule}), pois nao compensa transpor um unico bloco, e essa
+ * implementacao consulta as tabelas SP em posicoes que dependem dos dados. Por isso nao
+ * tem tempo constante, mesmo com este engine: o modo CBC (encadeado bloco a bloco, nos
+ * dois sentidos), o ultimo bloco com padding PKCS#5 no ECB, o ultimo bloco parcial do
+ * CTR e as APIs de um bloco por vez, como {@link DesMac}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesBitsliced implements DesBlockCipher {
+
+    /** Numero de blocos processados por passada. */
+    public static final int LANES = 64;
+
+    /** Tabela de permutacao inicial (IP), a partir de 1. */
+    private static final byte[] IP = {
+        58, 50, 42, 34, 26, 18, 10, 2, 60, 52, 44, 36, 28, 20, 12, 4,
+        62, 54, 46, 38, 30, 22, 14, 6, 64, 56, 48, 40, 32, 24, 16, 8,
+        57, 49, 41, 33, 25, 17,  9, 1, 59, 51, 43, 35, 27, 19, 11, 3,
+        61, 53, 45, 37, 29, 21, 13, 5, 63, 55, 47, 39, 31, 23, 15, 7 };
+
+    /** Fatias de trabalho por thread: estado (64), L (32) e R (32). */
+    private static final ThreadLocal<long[][]> ESTADO = ThreadLocal.withInitial(
+        () -> new long[][] { new long[64], new long[32], new long[32] });
+
+    private final DesBlockCipher escalar;
+    private final long[] chaves;
+    private final long[] chavesInversas;
+
+    /**
+     * @param ks Chaves por rodada usadas em todos os blocos
+     */
+    public DesBitsliced(DesKeySchedule ks) {
+        this(ks, ks.kn(), ks.knInverso());
+    }
+
+    /**
+     * Triple DES bitsliced: os tres estagios sao encadeados sem as permutacoes intermediarias.
+     *
+     * @param ks Chaves por rodada do Triple DES usadas em todos os blocos
+     */
+    public DesBitsliced(TripleDesKeySchedule ks) {
+        this(ks, ks.kn(), ks.knInverso());
+    }
+
+    private DesBitsliced(DesBlockCipher escalar, long[] kn, long[] knInverso) {
+        this.escalar = escalar;
+        this.chaves = new long[kn.length * 48];
+        this.chavesInversas = new long[kn.length * 48];
+        fatiarChaves(kn, chaves);
+        fatiarChaves(knInverso, chavesInversas);
+    }
+
+    @Override
+    public long encrypt(long bloco) {
+        return escalar.encrypt(bloco);
+    }
+
+    @Override
+    public long decrypt(long bloco) {
+        return escalar.decrypt(bloco);
+    }
+
+    @Override
+    public void encryptBlocks(long[] blocos, int off, int n) {
+        processar(blocos, off, n, chaves);
+    }
+
+    @Override
+    public void decryptBlocks(long[] blocos, int off, int n) {
+        processar(blocos, off, n, chavesInversas);
+    }
+
+    @Override
+    public int blocosPorLote() {
+        return LANES;
+    }
+
+    /**
+     * Processa {@code n} blocos em grupos de 64, completando o ultimo grupo com zeros.
+     */
+    private static void processar(long[] blocos, int off, int n, long[] chaves) {
+        long[][] estado = ESTADO.get();
+        long[] s = estado[0];
+        for (int i = 0; i < n; i += LANES) {
+            int m = Math.min(LANES, n - i);
+            System.arraycopy(blocos, off + i, s, 0, m);
+            if (m < LANES) {
+                Arrays.fill(s, m, LANES, 0L);
+            }
+            transpor(s);
+            cifrarFatias(s, estado[1], estado[2], chaves);
+            transpor(s);
+            System.arraycopy(s, 0, blocos, off + i, m);
+        }
+    }
+
+    /**
+     * Converte as chaves por rodada em fatias: cada bit de cada chave vira 0 ou -1,
+     * o mesmo valor para os 64 blocos.
+     *
+     * @param kn      16 (ou 48, no Triple DES) chaves de 48 bits
+     * @param destino Array de {@code kn.length}*48 fatias
+     */
+    static void fatiarChaves(long[] kn, long[] destino) {
+        for (int i = 0; i < kn.length; i++) {
+            for (int j = 0; j < 48; j++) {
+                destino[48*i + j] = -((kn[i] >>> (47 - j)) & 1);
+            }
+        }
+    }
+
+    /**
+     * Transpoe no lugar uma matriz de 64x64 bits, onde a linha i e {@code a[i]} e a
+     * coluna j e o bit {@code 63 - j}. A operacao e a sua propria inversa, e converte
+     * 64 blocos em 64 fatias (a fatia i guarda o bit i do DES do bloco j no bit 63 - j).
+     */
+    static void transpor(long[] a) {
+        long m = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, m ^= m << j) {
+            for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+                long t = (a[k] ^ (a[k | j] >>> j)) & m;
+                a[k] ^= t;
+                a[k | j] ^= t << j;
+            }
+        }
+    }
+
+    /**
+     * Executa o DES sobre o estado em fatias. As chaves podem ser diferentes em cada
+     * bloco, pois cada chave por rodada tambem e uma fatia.
+     *
+     * @param s      64 fatias do estado, substituidas pelo resultado
+     * @param l      32 fatias de trabalho
+     * @param r      32 fatias de trabalho
+     * @param chaves 16*48 fatias das chaves por rodada, na ordem em que sao aplicadas, ou
+     *               3*16*48 para os tres estagios do Triple DES
+     */
+    static void cifrarFatias(long[] s, long[] l, long[] r, long[] chaves) {
+        // IP: apenas renomeia as fatias
+        for (int i = 0; i < 32; i++) {
+            l[i] = s[IP[i] - 1];
+            r[i] = s[IP[i + 32] - 1];
+        }
+        // Entre estagios, IP(IP^-1(R16L16)) troca os papeis de L e R
+        for (int e = 0; e < chaves.length / (16*48); e++) {
+            long[] a = (e & 1) == 0 ? l : r;
+            long[] b = (e & 1) == 0 ? r : l;
+            for (int i = 0; i < 16; i += 2) {
+                rodada(a, b, chaves, 16*48*e + 48*i);
+                rodada(b, a, chaves, 16*48*e + 48*(i + 1));
+            }
+        }
+        // IP^-1 sobre R16L16
+        for (int i = 0; i < 32; i++) {
+            s[IP[i] - 1] = r[i];
+            s[IP[i + 32] - 1] = l[i];
+        }
+    }
+
+    /**
+     * Uma rodada do DES: {@code l ^= P(S(E(r) ^ k))}. A expansao E e a permutacao P sao
+     * apenas os indices usados nas chamadas das S-boxes.
+     */
+    private static void rodada(long[] l, long[] r, long[] k, int o) {
+        s1(r[31] ^ k[o], r[0] ^ k[o + 1], r[1] ^ k[o + 2], r[2] ^ k[o + 3], r[3] ^ k[o + 4], r[4] ^ k[o + 5],
+            l, 8, 16, 22, 30);
+        s2(r[3] ^ k[o + 6], r[4] ^ k[o + 7], r[5] ^ k[o + 8], r[6] ^ k[o + 9], r[7] ^ k[o + 10], r[8] ^ k[o + 11],
+            l, 12, 27, 1, 17);
+        s3(r[7] ^ k[o + 12], r[8] ^ k[o + 13], r[9] ^ k[o + 14], r[10] ^ k[o + 15], r[11] ^ k[o + 16], r[12] ^ k[o + 17],
+            l, 23, 15, 29, 5);
+        s4(r[11] ^ k[o + 18], r[12] ^ k[o + 19], r[13] ^ k[o + 20], r[14] ^ k[o + 21], r[15] ^ k[o + 22], r[16] ^ k[o + 23],
+            l, 25, 19, 9, 0);
+        s5(r[15] ^ k[o + 24], r[16] ^ k[o + 25], r[17] ^ k[o + 26], r[18] ^ k[o + 27], r[19] ^ k[o + 28], r[20] ^ k[o + 29],
+            l, 7, 13, 24, 2);
+        s6(r[19] ^ k[o + 30], r[20] ^ k[o + 31], r[21] ^ k[o + 32], r[22] ^ k[o + 33], r[23] ^ k[o + 34], r[24] ^ k[o + 35],
+            l, 3, 28, 10, 18);
+        s7(r[23] ^ k[o + 36], r[24] ^ k[o + 37], r[25] ^ k[o + 38], r[26] ^ k[o + 39], r[27] ^ k[o + 40], r[28] ^ k[o + 41],
+            l, 31, 11, 21, 6);
+        s8(r[27] ^ k[o + 42], r[28] ^ k[o + 43], r[29] ^ k[o + 44], r[30] ^ k[o + 45], r[31] ^ k[o + 46], r[0] ^ k[o + 47],
+            l, 4, 26, 14, 20);
+    }
+
+    /** S-box S1 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s1(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = ~a5 ^ a3;
+        long t1 = t0 ^ (a2 & (t0 ^ a5));
+        long t2 = a3 & ~a5;
+        long t3 = t2 ^ a2;
+        long t4 = t1 ^ (a1 & (t1 ^ t3));
+        long t5 = ~t2 ^ (a2 & (~t2 ^ ~t0));
+        long t6 = ~t1 ^ (a1 & (~t1 ^ t5));
+        long t7 = t4 ^ (a6 & (t4 ^ t6));
+        long t8 = a3 | ~a5;
+        long t9 = t8 ^ a2;
+        long t10 = ~a5 & ~a3;
+        long t11 = ~t2 ^ (a2 & (~t2 ^ t10));
+        long t12 = t9 ^ (a1 & (t9 ^ t11));
+        long t13 = t10 ^ (a2 & (t10 ^ a5));
+        long t14 = t3 ^ (a1 & (t3 ^ t13));
+        long t15 = t12 ^ (a6 & (t12 ^ t14));
+        long t16 = t7 ^ (a4 & (t7 ^ t15));
+        long t17 = t8 ^ (a2 & (t8 ^ ~a3));
+        long t18 = ~t3 ^ (a1 & (~t3 ^ t17));
+        long t19 = ~t0 ^ (a2 & (~t0 ^ a5));
+        long t20 = ~a3 | ~a5;
+        long t21 = t20 ^ (a2 & (t20 ^ t10));
+        long t22 = t19 ^ (a1 & (t19 ^ t21));
+        long t23 = t18 ^ (a6 & (t18 ^ t22));
+        long t24 = t10 ^ (a2 & (t10 ^ ~t2));
+        long t25 = t10 ^ (a2 & (t10 ^ ~t0));
+        long t26 = t24 ^ (a1 & (t24 ^ t25));
+        long t27 = t21 ^ a1;
+        long t28 = t26 ^ (a6 & (t26 ^ t27));
+        long t29 = t23 ^ (a4 & (t23 ^ t28));
+        long t30 = ~t20 ^ (a2 & (~t20 ^ t8));
+        long t31 = t17 ^ (a1 & (t17 ^ t30));
+        long t32 = ~t10 ^ (a2 & (~t10 ^ ~a3));
+        long t33 = t32 ^ (a1 & (t32 ^ t25));
+        long t34 = t31 ^ (a6 & (t31 ^ t33));
+        long t35 = ~t5 ^ (a1 & (~t5 ^ t9));
+        long t36 = a5 ^ (a2 & (a5 ^ t20));
+        long t37 = t25 ^ (a1 & (t25 ^ t36));
+        long t38 = t35 ^ (a6 & (t35 ^ t37));
+        long t39 = t34 ^ (a4 & (t34 ^ t38));
+        long t40 = t30 ^ (a1 & (t30 ^ ~t1));
+        long t41 = t0 ^ (a2 & (t0 ^ ~a3));
+        long t42 = ~t17 ^ (a1 & (~t17 ^ t41));
+        long t43 = t40 ^ (a6 & (t40 ^ t42));
+        long t44 = t20 ^ a2;
+        long t45 = t44 ^ a1;
+        long t46 = t8 ^ (a2 & (t8 ^ ~t0));
+        long t47 = a3 ^ (a2 & (a3 ^ t0));
+        long t48 = t46 ^ (a1 & (t46 ^ t47));
+        long t49 = t45 ^ (a6 & (t45 ^ t48));
+        long t50 = t43 ^ (a4 & (t43 ^ t49));
+        l[o1] ^= t16;
+        l[o2] ^= t29;
+        l[o3] ^= t39;
+        l[o4] ^= t50;
+    }
+
+    /** S-box S2 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s2(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = ~a1 ^ a3;
+        long t1 = a4 | a1;
+        long t2 = t1 ^ a3;
+        long t3 = t0 ^ (a5 & (t0 ^ t2));
+        long t4 = ~a1 ^ a4;
+        long t5 = t4 ^ (a3 & (t4 ^ ~a4));
+        long t6 = t5 ^ a5;
+        long t7 = t3 ^ (a2 & (t3 ^ t6));
+        long t8 = ~a4 ^ (a3 & (~a4 ^ ~t4));
+        long t9 = ~t0 ^ (a5 & (~t0 ^ t8));
+        long t10 = ~a4 ^ a3;
+        long t11 = t10 ^ (a5 & (t10 ^ ~t8));
+        long t12 = t9 ^ (a2 & (t9 ^ t11));
+        long t13 = t7 ^ (a6 & (t7 ^ t12));
+        long t14 = t4 ^ a5;
+        long t15 = a4 | ~a1;
+        long t16 = a4 & a1;
+        long t17 = t15 ^ (a3 & (t15 ^ t16));
+        long t18 = ~t0 ^ (a5 & (~t0 ^ t17));
+        long t19 = t14 ^ (a2 & (t14 ^ t18));
+        long t20 = ~t4 ^ a3;
+        long t21 = ~a1 ^ (a3 & (~a1 ^ ~t4));
+        long t22 = t20 ^ (a5 & (t20 ^ t21));
+        long t23 = a1 ^ (a3 & (a1 ^ ~t4));
+        long t24 = t4 ^ (a5 & (t4 ^ t23));
+        long t25 = t22 ^ (a2 & (t22 ^ t24));
+        long t26 = t19 ^ (a6 & (t19 ^ t25));
+        long t27 = t4 ^ (a3 & (t4 ^ ~t16));
+        long t28 = t27 ^ (a5 & (t27 ^ t2));
+        long t29 = a4 & ~a1;
+        long t30 = t29 ^ (a3 & (t29 ^ t16));
+        long t31 = t4 ^ (a3 & (t4 ^ t1));
+        long t32 = t30 ^ (a5 & (t30 ^ t31));
+        long t33 = t28 ^ (a2 & (t28 ^ t32));
+        long t34 = a3 | t29;
+        long t35 = t5 ^ (a5 & (t5 ^ t34));
+        long t36 = a1 ^ (a3 & (a1 ^ t15));
+        long t37 = ~t4 & ~a3;
+        long t38 = t36 ^ (a5 & (t36 ^ t37));
+        long t39 = t35 ^ (a2 & (t35 ^ t38));
+        long t40 = t33 ^ (a6 & (t33 ^ t39));
+        long t41 = t4 ^ (a3 & (t4 ^ a4));
+        long t42 = t41 ^ (a5 & (t41 ^ t4));
+        long t43 = t8 ^ (a5 & (t8 ^ t0));
+        long t44 = t42 ^ (a2 & (t42 ^ t43));
+        long t45 = t15 ^ a3;
+        long t46 = ~a4 ^ (a5 & (~a4 ^ t45));
+        long t47 = t1 ^ (a3 & (t1 ^ t29));
+        long t48 = t47 ^ (a5 & (t47 ^ a3));
+        long t49 = t46 ^ (a2 & (t46 ^ t48));
+        long t50 = t44 ^ (a6 & (t44 ^ t49));
+        l[o1] ^= t13;
+        l[o2] ^= t26;
+        l[o3] ^= t40;
+        l[o4] ^= t50;
+    }
+
+    /** S-box S3 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s3(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = ~a3 ^ (a4 & (~a3 ^ ~a6));
+        long t1 = ~a3 | a6;
+        long t2 = a4 & t1;
+        long t3 = t0 ^ (a5 & (t0 ^ t2));
+        long t4 = ~a6 ^ a3;
+        long t5 = a3 ^ (a4 & (a3 ^ t4));
+        long t6 = t1 ^ (a4 & (t1 ^ ~t4));
+        long t7 = t5 ^ (a5 & (t5 ^ t6));
+        long t8 = t3 ^ (a2 & (t3 ^ t7));
+        long t9 = ~a6 ^ a4;
+        long t10 = a3 | a6;
+        long t11 = t10 ^ a4;
+        long t12 = t9 ^ (a5 & (t9 ^ t11));
+        long t13 = t4 ^ a4;
+        long t14 = t13 ^ a5;
+        long t15 = t12 ^ (a2 & (t12 ^ t14));
+        long t16 = t8 ^ (a1 & (t8 ^ t15));
+        long t17 = ~t4 ^ (a4 & (~t4 ^ a3));
+        long t18 = t17 ^ (a5 & (t17 ^ ~t9));
+        long t19 = a3 & a6;
+        long t20 = t19 ^ (a4 & (t19 ^ t1));
+        long t21 = ~a6 ^ (a4 & (~a6 ^ ~a3));
+        long t22 = t20 ^ (a5 & (t20 ^ t21));
+        long t23 = t18 ^ (a2 & (t18 ^ t22));
+        long t24 = ~a6 ^ (a4 & (~a6 ^ t19));
+        long t25 = ~t17 ^ (a5 & (~t17 ^ t24));
+        long t26 = a3 | ~a6;
+        long t27 = a6 ^ (a4 & (a6 ^ t26));
+        long t28 = ~t4 ^ (a5 & (~t4 ^ t27));
+        long t29 = t25 ^ (a2 & (t25 ^ t28));
+        long t30 = t23 ^ (a1 & (t23 ^ t29));
+        long t31 = t26 ^ (a4 & (t26 ^ a3));
+        long t32 = t31 ^ (a5 & (t31 ^ ~t13));
+        long t33 = t19 ^ (a4 & (t19 ^ ~a3));
+        long t34 = t17 ^ (a5 & (t17 ^ t33));
+        long t35 = t32 ^ (a2 & (t32 ^ t34));
+        long t36 = t19 ^ (a4 & (t19 ^ ~t1));
+        long t37 = ~t19 ^ a4;
+        long t38 = t36 ^ (a5 & (t36 ^ t37));
+        long t39 = a4 | t4;
+        long t40 = t39 ^ (a5 & (t39 ^ ~t4));
+        long t41 = t38 ^ (a2 & (t38 ^ t40));
+        long t42 = t35 ^ (a1 & (t35 ^ t41));
+        long t43 = ~t9 ^ (a5 & (~t9 ^ ~t4));
+        long t44 = t43 ^ a2;
+        long t45 = ~t5 ^ a5;
+        long t46 = t26 & ~a4;
+        long t47 = t46 ^ (a5 & (t46 ^ t6));
+        long t48 = t45 ^ (a2 & (t45 ^ t47));
+        long t49 = t44 ^ (a1 & (t44 ^ t48));
+        l[o1] ^= t16;
+        l[o2] ^= t30;
+        l[o3] ^= t42;
+        l[o4] ^= t49;
+    }
+
+    /** S-box S4 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s4(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = ~a1 | ~a3;
+        long t1 = a1 ^ (a4 & (a1 ^ t0));
+        long t2 = a3 ^ a1;
+        long t3 = t2 ^ a4;
+        long t4 = t1 ^ (a2 & (t1 ^ t3));
+        long t5 = ~t2 ^ (a4 & (~t2 ^ a3));
+        long t6 = a3 & ~a1;
+        long t7 = t6 ^ (a4 & (t6 ^ t2));
+        long t8 = t5 ^ (a2 & (t5 ^ t7));
+        long t9 = t4 ^ (a5 & (t4 ^ t8));
+        long t10 = a1 ^ (a4 & (a1 ^ t6));
+        long t11 = ~t2 ^ (a2 & (~t2 ^ t10));
+        long t12 = t0 ^ a4;
+        long t13 = a4 | t6;
+        long t14 = t12 ^ (a2 & (t12 ^ t13));
+        long t15 = t11 ^ (a5 & (t11 ^ t14));
+        long t16 = t9 ^ (a6 & (t9 ^ t15));
+        long t17 = t15 ^ (a6 & (t15 ^ ~t9));
+        long t18 = ~a3 ^ (a4 & (~a3 ^ ~t2));
+        long t19 = a1 & ~a3;
+        long t20 = t2 ^ (a4 & (t2 ^ t19));
+        long t21 = t18 ^ (a2 & (t18 ^ t20));
+        long t22 = a1 | a3;
+        long t23 = t22 ^ (a4 & (t22 ^ ~a1));
+        long t24 = t23 ^ (a2 & (t23 ^ ~t3));
+        long t25 = t21 ^ (a5 & (t21 ^ t24));
+        long t26 = t22 ^ a4;
+        long t27 = a4 & ~t19;
+        long t28 = t26 ^ (a2 & (t26 ^ t27));
+        long t29 = ~t19 ^ (a4 & (~t19 ^ a1));
+        long t30 = t2 ^ (a2 & (t2 ^ t29));
+        long t31 = t28 ^ (a5 & (t28 ^ t30));
+        long t32 = t25 ^ (a6 & (t25 ^ t31));
+        long t33 = ~t31 ^ (a6 & (~t31 ^ t25));
+        l[o1] ^= t16;
+        l[o2] ^= t17;
+        l[o3] ^= t32;
+        l[o4] ^= t33;
+    }
+
+    /** S-box S5 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s5(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = a5 & ~a1;
+        long t1 = t0 ^ a2;
+        long t2 = a5 | a1;
+        long t3 = t2 ^ a2;
+        long t4 = t1 ^ (a3 & (t1 ^ t3));
+        long t5 = a5 & a1;
+        long t6 = ~a2 | t5;
+        long t7 = a1 ^ a5;
+        long t8 = t5 ^ (a2 & (t5 ^ t7));
+        long t9 = t6 ^ (a3 & (t6 ^ t8));
+        long t10 = t4 ^ (a6 & (t4 ^ t9));
+        long t11 = a5 | ~a1;
+        long t12 = ~t7 ^ (a2 & (~t7 ^ t11));
+        long t13 = t8 ^ (a3 & (t8 ^ t12));
+        long t14 = t7 ^ (a2 & (t7 ^ t11));
+        long t15 = ~t7 ^ (a2 & (~t7 ^ ~t2));
+        long t16 = t14 ^ (a3 & (t14 ^ t15));
+        long t17 = t13 ^ (a6 & (t13 ^ t16));
+        long t18 = t10 ^ (a4 & (t10 ^ t17));
+        long t19 = ~t7 ^ (a2 & (~t7 ^ ~a5));
+        long t20 = t7 ^ (a3 & (t7 ^ t19));
+        long t21 = ~t2 ^ (a2 & (~t2 ^ ~t0));
+        long t22 = t11 ^ (a2 & (t11 ^ t5));
+        long t23 = t21 ^ (a3 & (t21 ^ t22));
+        long t24 = t20 ^ (a6 & (t20 ^ t23));
+        long t25 = t7 ^ a2;
+        long t26 = ~t3 ^ (a3 & (~t3 ^ t25));
+        long t27 = t26 ^ a6;
+        long t28 = t24 ^ (a4 & (t24 ^ t27));
+        long t29 = ~t5 ^ (a2 & (~t5 ^ a1));
+        long t30 = ~t14 ^ (a3 & (~t14 ^ t29));
+        long t31 = a5 ^ a2;
+        long t32 = t29 ^ (a3 & (t29 ^ t31));
+        long t33 = t30 ^ (a6 & (t30 ^ t32));
+        long t34 = ~t29 ^ (a3 & (~t29 ^ ~t8));
+        long t35 = ~t7 ^ (a2 & (~t7 ^ ~a1));
+        long t36 = ~t11 ^ (a2 & (~t11 ^ a5));
+        long t37 = t35 ^ (a3 & (t35 ^ t36));
+        long t38 = t34 ^ (a6 & (t34 ^ t37));
+        long t39 = t33 ^ (a4 & (t33 ^ t38));
+        long t40 = a2 & t2;
+        long t41 = t40 ^ (a3 & (t40 ^ ~t7));
+        long t42 = t7 ^ (a2 & (t7 ^ ~a1));
+        long t43 = t25 ^ (a3 & (t25 ^ t42));
+        long t44 = t41 ^ (a6 & (t41 ^ t43));
+        long t45 = t2 ^ (a2 & (t2 ^ t11));
+        long t46 = ~a5 ^ (a2 & (~a5 ^ t0));
+        long t47 = t45 ^ (a3 & (t45 ^ t46));
+        long t48 = t5 ^ (a2 & (t5 ^ ~t7));
+        long t49 = t11 ^ (a2 & (t11 ^ a1));
+        long t50 = t48 ^ (a3 & (t48 ^ t49));
+        long t51 = t47 ^ (a6 & (t47 ^ t50));
+        long t52 = t44 ^ (a4 & (t44 ^ t51));
+        l[o1] ^= t18;
+        l[o2] ^= t28;
+        l[o3] ^= t39;
+        l[o4] ^= t52;
+    }
+
+    /** S-box S6 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s6(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = a3 ^ a5;
+        long t1 = ~a5 ^ (a2 & (~a5 ^ t0));
+        long t2 = a5 | ~a3;
+        long t3 = a5 & a3;
+        long t4 = t2 ^ (a2 & (t2 ^ t3));
+        long t5 = t1 ^ (a6 & (t1 ^ t4));
+        long t6 = ~t2 ^ a2;
+        long t7 = t4 ^ (a6 & (t4 ^ t6));
+        long t8 = t5 ^ (a4 & (t5 ^ t7));
+        long t9 = ~t2 ^ (a2 & (~t2 ^ ~a3));
+        long t10 = t4 ^ (a6 & (t4 ^ t9));
+        long t11 = a5 | a3;
+        long t12 = t11 ^ (a2 & (t11 ^ a3));
+        long t13 = t1 ^ (a6 & (t1 ^ t12));
+        long t14 = t10 ^ (a4 & (t10 ^ t13));
+        long t15 = t8 ^ (a1 & (t8 ^ t14));
+        long t16 = ~t11 ^ a2;
+        long t17 = t16 ^ a6;
+        long t18 = ~t0 ^ (a2 & (~t0 ^ ~a3));
+        long t19 = t0 ^ (a6 & (t0 ^ t18));
+        long t20 = t17 ^ (a4 & (t17 ^ t19));
+        long t21 = a5 & ~a3;
+        long t22 = t21 ^ (a2 & (t21 ^ ~t0));
+        long t23 = ~t0 ^ a2;
+        long t24 = t22 ^ (a6 & (t22 ^ t23));
+        long t25 = ~t3 ^ (a2 & (~t3 ^ ~t0));
+        long t26 = t0 ^ (a2 & (t0 ^ a5));
+        long t27 = t25 ^ (a6 & (t25 ^ t26));
+        long t28 = t24 ^ (a4 & (t24 ^ t27));
+        long t29 = t20 ^ (a1 & (t20 ^ t28));
+        long t30 = t3 ^ (a2 & (t3 ^ a3));
+        long t31 = t30 ^ (a6 & (t30 ^ t25));
+        long t32 = t21 ^ (a2 & (t21 ^ t0));
+        long t33 = t25 ^ (a6 & (t25 ^ t32));
+        long t34 = t31 ^ (a4 & (t31 ^ t33));
+        long t35 = t0 ^ (a2 & (t0 ^ ~t11));
+        long t36 = t21 ^ (a2 & (t21 ^ ~t3));
+        long t37 = t35 ^ (a6 & (t35 ^ t36));
+        long t38 = ~t21 ^ a2;
+        long t39 = ~t35 ^ (a6 & (~t35 ^ t38));
+        long t40 = t37 ^ (a4 & (t37 ^ t39));
+        long t41 = t34 ^ (a1 & (t34 ^ t40));
+        long t42 = a3 ^ (a2 & (a3 ^ ~a5));
+        long t43 = ~t38 ^ (a6 & (~t38 ^ t42));
+        long t44 = t26 ^ (a4 & (t26 ^ t43));
+        long t45 = ~t11 ^ (a2 & (~t11 ^ ~t21));
+        long t46 = t45 ^ (a6 & (t45 ^ ~t16));
+        long t47 = ~t6 ^ a6;
+        long t48 = t46 ^ (a4 & (t46 ^ t47));
+        long t49 = t44 ^ (a1 & (t44 ^ t48));
+        l[o1] ^= t15;
+        l[o2] ^= t29;
+        l[o3] ^= t41;
+        l[o4] ^= t49;
+    }
+
+    /** S-box S7 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s7(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = a4 & a2;
+        long t1 = t0 ^ (a3 & (t0 ^ ~a2));
+        long t2 = a2 ^ a4;
+        long t3 = ~t0 ^ (a3 & (~t0 ^ t2));
+        long t4 = t1 ^ (a5 & (t1 ^ t3));
+        long t5 = t2 ^ a3;
+        long t6 = a4 | a2;
+        long t7 = a4 & ~a2;
+        long t8 = t6 ^ (a3 & (t6 ^ t7));
+        long t9 = t5 ^ (a5 & (t5 ^ t8));
+        long t10 = t4 ^ (a1 & (t4 ^ t9));
+        long t11 = ~t0 ^ a3;
+        long t12 = t11 ^ a5;
+        long t13 = a4 | ~a2;
+        long t14 = t13 ^ (a3 & (t13 ^ t0));
+        long t15 = t2 ^ (a5 & (t2 ^ t14));
+        long t16 = t12 ^ (a1 & (t12 ^ t15));
+        long t17 = t10 ^ (a6 & (t10 ^ t16));
+        long t18 = ~t8 ^ a5;
+        long t19 = t18 ^ (a1 & (t18 ^ t4));
+        long t20 = ~t7 ^ (a3 & (~t7 ^ ~t6));
+        long t21 = a4 ^ (a3 & (a4 ^ a2));
+        long t22 = t20 ^ (a5 & (t20 ^ t21));
+        long t23 = ~a2 ^ (a3 & (~a2 ^ ~t13));
+        long t24 = t23 ^ a5;
+        long t25 = t22 ^ (a1 & (t22 ^ t24));
+        long t26 = t19 ^ (a6 & (t19 ^ t25));
+        long t27 = t13 ^ a3;
+        long t28 = t5 ^ (a5 & (t5 ^ t27));
+        long t29 = t8 ^ (a5 & (t8 ^ ~t27));
+        long t30 = t28 ^ (a1 & (t28 ^ t29));
+        long t31 = t2 ^ (a3 & (t2 ^ ~t13));
+        long t32 = t2 ^ (a3 & (t2 ^ t6));
+        long t33 = t31 ^ (a5 & (t31 ^ t32));
+        long t34 = ~t6 ^ a3;
+        long t35 = t34 ^ (a5 & (t34 ^ ~t5));
+        long t36 = t33 ^ (a1 & (t33 ^ t35));
+        long t37 = t30 ^ (a6 & (t30 ^ t36));
+        long t38 = a2 ^ (a3 & (a2 ^ ~a4));
+        long t39 = ~t2 ^ (a3 & (~t2 ^ a4));
+        long t40 = t38 ^ (a5 & (t38 ^ t39));
+        long t41 = t40 ^ a1;
+        long t42 = t13 ^ (a3 & (t13 ^ t7));
+        long t43 = t42 ^ (a5 & (t42 ^ ~t39));
+        long t44 = ~t7 ^ a3;
+        long t45 = t5 ^ (a5 & (t5 ^ t44));
+        long t46 = t43 ^ (a1 & (t43 ^ t45));
+        long t47 = t41 ^ (a6 & (t41 ^ t46));
+        l[o1] ^= t17;
+        l[o2] ^= t26;
+        l[o3] ^= t37;
+        l[o4] ^= t47;
+    }
+
+    /** S-box S8 como circuito de portas logicas (multiplexadores sobre a1..a6). */
+    private static void s8(long a1, long a2, long a3, long a4, long a5, long a6,
+                           long[] l, int o1, int o2, int o3, int o4) {
+        long t0 = ~a5 ^ a3;
+        long t1 = t0 ^ (a2 & (t0 ^ ~a3));
+        long t2 = ~a5 ^ (a2 & (~a5 ^ ~t0));
+        long t3 = t1 ^ (a4 & (t1 ^ t2));
+        long t4 = a3 | a5;
+        long t5 = a3 & ~a5;
+        long t6 = t4 ^ (a2 & (t4 ^ t5));
+        long t7 = t5 ^ a2;
+        long t8 = t6 ^ (a4 & (t6 ^ t7));
+        long t9 = t3 ^ (a1 & (t3 ^ t8));
+        long t10 = ~t0 ^ a2;
+        long t11 = ~a3 ^ (a2 & (~a3 ^ ~t0));
+        long t12 = t10 ^ (a4 & (t10 ^ t11));
+        long t13 = a3 & a5;
+        long t14 = t13 ^ (a2 & (t13 ^ ~a3));
+        long t15 = a3 | ~a5;
+        long t16 = t15 ^ (a2 & (t15 ^ t0));
+        long t17 = t14 ^ (a4 & (t14 ^ t16));
+        long t18 = t12 ^ (a1 & (t12 ^ t17));
+        long t19 = t9 ^ (a6 & (t9 ^ t18));
+        long t20 = t15 ^ (a2 & (t15 ^ t5));
+        long t21 = ~t15 ^ (a2 & (~t15 ^ t4));
+        long t22 = t20 ^ (a4 & (t20 ^ t21));
+        long t23 = ~t10 ^ (a4 & (~t10 ^ t2));
+        long t24 = t22 ^ (a1 & (t22 ^ t23));
+        long t25 = t7 ^ a4;
+        long t26 = ~t22 ^ (a1 & (~t22 ^ t25));
+        long t27 = t24 ^ (a6 & (t24 ^ t26));
+        long t28 = t4 ^ a2;
+        long t29 = t28 ^ (a4 & (t28 ^ t7));
+        long t30 = ~a3 ^ (a2 & (~a3 ^ t4));
+        long t31 = t30 ^ a4;
+        long t32 = t29 ^ (a1 & (t29 ^ t31));
+        long t33 = t4 ^ (a2 & (t4 ^ t13));
+        long t34 = t33 ^ (a4 & (t33 ^ t7));
+        long t35 = t0 ^ (a2 & (t0 ^ ~a5));
+        long t36 = ~a3 ^ a2;
+        long t37 = t35 ^ (a4 & (t35 ^ t36));
+        long t38 = t34 ^ (a1 & (t34 ^ t37));
+        long t39 = t32 ^ (a6 & (t32 ^ t38));
+        long t40 = ~t5 ^ (a2 & (~t5 ^ ~t15));
+        long t41 = t40 ^ (a4 & (t40 ^ t2));
+        long t42 = ~t15 ^ a2;
+        long t43 = t42 ^ (a4 & (t42 ^ ~t2));
+        long t44 = t41 ^ (a1 & (t41 ^ t43));
+        long t45 = ~t18 ^ (a6 & (~t18 ^ t44));
+        l[o1] ^= t19;
+        l[o2] ^= t27;
+        l[o3] ^= t39;
+        l[o4] ^= t45;
+    }
+}
@@ -0,0 +1,48 @@
+package algoritimo;
+/**
+ * Primitiva de cifra de bloco de 64 bits usada pelos modos de operacao.
+ * <p>
+ * Os blocos sao representados por {@code long}, com o primeiro byte do bloco nos
+ * 8 bits mais significativos.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public interface DesBlockCipher {
+
+    /**
+     * Criptografa um bloco de 64 bits.
+     */
+    long encrypt(long bloco);
+
+    /**
+     * Descriptografa um bloco de 64 bits.
+     */
+    long decrypt(long bloco);
+
+    /**
+     * Criptografa {@code n} blocos independentes no lugar, como no modo ECB.
+     */
+    default void encryptBlocks(long[] blocos, int off, int n) {
+        for (int i = off; i < off + n; i++) {
+            blocos[i] = encrypt(blocos[i]);
+        }
+    }
+
+    /**
+     * Descriptografa {@code n} blocos independentes no lugar, como no modo ECB.
+     */
+    default void decryptBlocks(long[] blocos, int off, int n) {
+        for (int i = off; i < off + n; i++) {
+            blocos[i] = decrypt(blocos[i]);
+        }
+    }
+
+    /**
+     * Numero de blocos que a implementacao processa de uma vez. Valores maiores que 1
+     * indicam que os modos devem agrupar os blocos e chamar {@link #encryptBlocks}.
+     */
+    default int blocosPorLote() {
+        return 1;
+    }
+}
@@ -0,0 +1,125 @@
+package algoritimo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+
+/**
+ * Processamento em massa de blocos de 64 bits guardados fora do heap, em buffers
+ * diretos ou mapeados de arquivo ({@link java.nio.MappedByteBuffer}).
+ * <p>
+ * Diferente de {@link DesModes}, os deslocamentos sao absolutos (a posicao, o limite e
+ * a ordem configurados nos buffers nao sao alterados, entao varias threads podem usar
+ * o mesmo buffer em faixas distintas) e a ordem dos bytes de cada bloco e explicita:
+ * {@link ByteOrder#BIG_ENDIAN} e a ordem padrao do DES, e
+ * {@link ByteOrder#LITTLE_ENDIAN} trata cada 8 bytes como um {@code long} little-endian.
+ * Nada e alocado por chamada.
+ * <p>
+ * A origem e o destino podem ser a mesma memoria com o mesmo deslocamento, para cifrar
+ * no lugar, mas nao podem se sobrepor de outra forma. Nos buffers com array a
+ * sobreposicao e verificada pelo array, inclusive entre visoes ({@code duplicate()},
+ * {@code slice()}); nos diretos, apenas quando sao o mesmo objeto. Nao ha padding: no
+ * ECB e no CBC o tamanho deve ser multiplo de 8, e no CTR um bloco parcial so e aceito
+ * no final da mensagem. O valor retornado (vetor do CBC ou proximo contador do CTR) permite
+ * continuar a mensagem em outra chamada.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesBulk {
+
+    private DesBulk() {
+    }
+
+    /**
+     * Criptografa {@code len} bytes de {@code origem} a partir de {@code origemOff},
+     * gravando em {@code destino} a partir de {@code destinoOff}.
+     * <p>
+     * Buffers diretos distintos sao tratados como memorias distintas: se forem visoes da
+     * mesma memoria, as faixas devem coincidir ou ser disjuntas, pois uma sobreposicao
+     * parcial nao e detectada e produz resultado indefinido.
+     *
+     * @param iv    Vetor de inicializacao (CBC) ou contador inicial (CTR); ignorado no ECB
+     * @param ordem Ordem dos bytes de cada bloco
+     * @return      O vetor para o proximo trecho (CBC) ou o proximo contador (CTR)
+     * @throws IllegalArgumentException se as faixas se sobrepoem parcialmente no mesmo
+     *         buffer ou no mesmo array
+     */
+    public static long encrypt(DesMode modo, DesBlockCipher cifra, long iv, ByteBuffer origem, int origemOff,
+                               ByteBuffer destino, int destinoOff, int len, ByteOrder ordem) {
+        verificar(modo, origem, origemOff, destino, destinoOff, len);
+        return DesModes.processar(modo, true, cifra, iv, origem, origemOff, len, destino, destinoOff, ordem);
+    }
+
+    /**
+     * Descriptografa {@code len} bytes de {@code origem} a partir de {@code origemOff},
+     * gravando em {@code destino} a partir de {@code destinoOff}.
+     * <p>
+     * Buffers diretos distintos sao tratados como memorias distintas: se forem visoes da
+     * mesma memoria, as faixas devem coincidir ou ser disjuntas, pois uma sobreposicao
+     * parcial nao e detectada e produz resultado indefinido.
+     *
+     * @param iv    Vetor de inicializacao (CBC) ou contador inicial (CTR); ignorado no ECB
+     * @param ordem Ordem dos bytes de cada bloco
+     * @return      O vetor para o proximo trecho (CBC) ou o proximo contador (CTR)
+     * @throws IllegalArgumentException se as faixas se sobrepoem parcialmente no mesmo
+     *         buffer ou no mesmo array
+     */
+    public static long decrypt(DesMode modo, DesBlockCipher cifra, long iv, ByteBuffer origem, int origemOff,
+                               ByteBuffer destino, int destinoOff, int len, ByteOrder ordem) {
+        verificar(modo, origem, origemOff, destino, destinoOff, len);
+        return DesModes.processar(modo, false, cifra, iv, origem, origemOff, len, destino, destinoOff, ordem);
+    }
+
+    /**
+     * Criptografa no lugar {@code len} bytes de {@code buffer} a partir de {@code off}.
+     *
+     * @return O vetor para o proximo trecho (CBC) ou o proximo contador (CTR)
+     */
+    public static long encrypt(DesMode modo, DesBlockCipher cifra, long iv, ByteBuffer buffer, int off, int len,
+                               ByteOrder ordem) {
+        return encrypt(modo, cifra, iv, buffer, off, buffer, off, len, ordem);
+    }
+
+    /**
+     * Descriptografa no lugar {@code len} bytes de {@code buffer} a partir de {@code off}.
+     *
+     * @return O vetor para o proximo trecho (CBC) ou o proximo contador (CTR)
+     */
+    public static long decrypt(DesMode modo, DesBlockCipher cifra, long iv, ByteBuffer buffer, int off, int len,
+                               ByteOrder ordem) {
+        return decrypt(modo, cifra, iv, buffer, off, buffer, off, len, ordem);
+    }
+
+    private static void verificar(DesMode modo, ByteBuffer origem, int origemOff,
+                                  ByteBuffer destino, int destinoOff, int len) {
+        DesModes.verificarFaixa(origem.limit(), origemOff, len);
+        DesModes.verificarFaixa(destino.limit(), destinoOff, len);
+        DesModes.verificarAlinhamento(modo, len);
+        if (destino.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        if (sobrepostos(origem, origemOff, destino, destinoOff, len)) {
+            throw new IllegalArgumentException("A origem e o destino se sobrepoem");
+        }
+    }
+
+    /**
+     * Se as faixas se sobrepoem sem coincidir. Buffers com array sao comparados pelo array
+     * e pela posicao absoluta nele ({@code arrayOffset()}); os demais, so quando sao o
+     * mesmo objeto.
+     */
+    private static boolean sobrepostos(ByteBuffer origem, int origemOff, ByteBuffer destino, int destinoOff,
+                                       int len) {
+        if (origem.hasArray() && destino.hasArray()) {
+            if (origem.array() != destino.array()) {
+                return false;
+            }
+            origemOff += origem.arrayOffset();
+            destinoOff += destino.arrayOffset();
+        } else if (origem != destino) {
+            return false;
+        }
+        return origemOff != destinoOff && origemOff < destinoOff + len && destinoOff < origemOff + len;
+    }
+}
@@ -0,0 +1,411 @@
+package algoritimo;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Cifra incremental: processa uma mensagem em partes ({@link #update}) e termina com
+ * {@link #doFinal}, guardando entre as chamadas o bloco parcial, o estado do modo
+ * (vetor do CBC ou contador do CTR) e, no CTR, o restante do ultimo bloco de fluxo.
+ * <p>
+ * Cada chamada processa diretamente todos os blocos completos disponiveis; apenas os
+ * bytes que nao completam um bloco ficam guardados (na descriptografia com PKCS#5 o
+ * ultimo bloco tambem fica guardado ate {@link #doFinal}, pois contem o padding).
+ * Depois de {@link #doFinal} a cifra volta ao estado inicial e pode ser reutilizada,
+ * sem alocar nada novamente.
+ * <p>
+ * Nao e thread-safe. A entrada e a saida de uma mesma chamada podem ser o mesmo array
+ * (inclusive no mesmo deslocamento); quando a saida seria gravada sobre entrada ainda nao
+ * lida, a entrada e copiada antes. Buffers diretos sobrepostos nao sao detectados.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesCipher {
+
+    private DesMode modo;
+    private DesPadding padding;
+    private DesBlockCipher cifra;
+    private boolean cifrar;
+    private long iv;
+
+    private long estado;
+    private final byte[] pendente = new byte[8];
+    private int nPendente;
+
+    /** Bloco de fluxo do CTR e quantos bytes dele ja foram usados. */
+    private long fluxo;
+    private int usados = 8;
+
+    /** Ultimo bloco da mensagem, montado por {@link #finalizar()}. */
+    private long ultimo;
+
+    /**
+     * @param cifrar  {@code true} para criptografar, {@code false} para descriptografar
+     * @param modo    Modo de operacao
+     * @param padding Preenchimento (deve ser {@link DesPadding#NONE} no CTR)
+     * @param cifra   Cifra de bloco
+     * @param iv      Vetor de inicializacao (CBC) ou contador inicial (CTR); ignorado no ECB
+     */
+    public DesCipher(boolean cifrar, DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv) {
+        init(cifrar, modo, padding, cifra, iv);
+    }
+
+    /**
+     * Reconfigura a cifra para uma nova mensagem, descartando o estado atual.
+     */
+    public void init(boolean cifrar, DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv) {
+        DesModes.verificarPadding(modo, padding);
+        this.cifrar = cifrar;
+        this.modo = modo;
+        this.padding = padding;
+        this.cifra = cifra;
+        this.iv = iv;
+        reset();
+    }
+
+    /**
+     * Volta ao inicio da mensagem, com o mesmo vetor de inicializacao.
+     */
+    public void reset() {
+        estado = iv;
+        nPendente = 0;
+        usados = 8;
+    }
+
+    /** @return Se a cifra criptografa */
+    public boolean isEncrypt() {
+        return cifrar;
+    }
+
+    /** @return O modo de operacao */
+    public DesMode getMode() {
+        return modo;
+    }
+
+    /** @return O preenchimento */
+    public DesPadding getPadding() {
+        return padding;
+    }
+
+    /** @return A cifra de bloco */
+    public DesBlockCipher getBlockCipher() {
+        return cifra;
+    }
+
+    /** @return O vetor de inicializacao (ou contador inicial) */
+    public long getIv() {
+        return iv;
+    }
+
+    /**
+     * @return Quantos bytes estao guardados aguardando completar um bloco
+     */
+    int pendentes() {
+        return nPendente;
+    }
+
+    /**
+     * @return Numero maximo de bytes que {@link #update} grava para {@code len} bytes de entrada
+     */
+    public int updateOutputSize(int len) {
+        return modo == DesMode.CTR ? len : (nPendente + len) & ~7;
+    }
+
+    /**
+     * @return Numero maximo de bytes gravados por {@link #update} com {@code len} bytes
+     *         seguido de {@link #doFinal}
+     */
+    public int getOutputSize(int len) {
+        if (modo == DesMode.CTR) {
+            return len;
+        }
+        return cifrar ? DesModes.outputSize(padding, nPendente + len) : nPendente + len;
+    }
+
+    /**
+     * Processa mais uma parte da mensagem.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public int update(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (in == out && sobrepostos(inOff, len, outOff)) {
+            in = Arrays.copyOfRange(in, inOff, inOff + len);
+            inOff = 0;
+        }
+        if (modo == DesMode.CTR) {
+            return ctr(in, inOff, len, out, outOff);
+        }
+
+        int total = nPendente + len;
+        // na descriptografia com padding o ultimo bloco fica guardado ate o doFinal
+        int processar = !cifrar && padding == DesPadding.PKCS5 ? (total - 1) & ~7 : total & ~7;
+        if (processar <= 0) {
+            System.arraycopy(in, inOff, pendente, nPendente, len);
+            nPendente += len;
+            return 0;
+        }
+
+        int escritos = 0;
+        if (nPendente > 0) {
+            int falta = 8 - nPendente;
+            System.arraycopy(in, inOff, pendente, nPendente, falta);
+            DesModes.escreverLong(out, outOff, processarBloco(DesModes.lerLong(pendente, 0)));
+            inOff += falta;
+            len -= falta;
+            outOff += 8;
+            processar -= 8;
+            escritos = 8;
+        }
+        estado = DesModes.processar(modo, cifrar, cifra, estado, in, inOff, processar, out, outOff);
+        nPendente = len - processar;
+        System.arraycopy(in, inOff + processar, pendente, 0, nPendente);
+        return escritos + processar;
+    }
+
+    /**
+     * Termina a mensagem: processa o bloco guardado e aplica ou remove o padding. Em
+     * seguida a cifra volta ao estado inicial.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     * @throws IllegalArgumentException se a mensagem nao tiver tamanho valido ou o padding for invalido
+     */
+    public int doFinal(byte[] out, int outOff) {
+        try {
+            int n = finalizar();
+            if (n > 0) {
+                DesModes.verificarSaida(out.length, outOff, n);
+                for (int i = 0; i < n; i++) {
+                    out[outOff + i] = (byte) (ultimo >>> (56 - 8*i));
+                }
+            }
+            return n;
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Termina a mensagem gravando a partir da posicao de {@code out}, que e avancada.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     * @see #doFinal(byte[], int)
+     */
+    public int doFinal(ByteBuffer out) {
+        try {
+            int n = finalizar();
+            if (n > 0) {
+                int pos = out.position();
+                DesModes.verificarSaida(out.remaining(), 0, n);
+                for (int i = 0; i < n; i++) {
+                    out.put(pos + i, (byte) (ultimo >>> (56 - 8*i)));
+                }
+                out.position(pos + n);
+            }
+            return n;
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Processa a ultima parte da mensagem e termina, como {@link #update} seguido de {@link #doFinal}.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public int doFinal(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        int n;
+        try {
+            n = update(in, inOff, len, out, outOff);
+        } catch (RuntimeException e) {
+            reset();
+            throw e;
+        }
+        return n + doFinal(out, outOff + n);
+    }
+
+    /**
+     * Processa os bytes restantes de {@code in}, gravando a partir da posicao de
+     * {@code out}. As posicoes de ambos os buffers sao avancadas. Buffers diretos sao
+     * processados sem copias nem alocacoes.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public int update(ByteBuffer in, ByteBuffer out) {
+        int len = in.remaining();
+        int inPos = in.position();
+        int outPos = out.position();
+        DesModes.verificarSaida(out.remaining(), 0, updateOutputSize(len));
+        int escritos;
+        if (in.hasArray() && out.hasArray()) {
+            escritos = update(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+        } else if (modo == DesMode.CTR) {
+            escritos = ctr(in, inPos, len, out, outPos);
+        } else {
+            escritos = blocos(in, inPos, len, out, outPos);
+        }
+        in.position(inPos + len);
+        out.position(outPos + escritos);
+        return escritos;
+    }
+
+    /**
+     * Processa a ultima parte da mensagem e termina, como {@link #update(ByteBuffer, ByteBuffer)}
+     * seguido de {@link #doFinal(ByteBuffer)}.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public int doFinal(ByteBuffer in, ByteBuffer out) {
+        int n;
+        try {
+            n = update(in, out);
+        } catch (RuntimeException e) {
+            reset();
+            throw e;
+        }
+        return n + doFinal(out);
+    }
+
+    /**
+     * ECB e CBC sobre buffers, com a mesma divisao de {@link #update(byte[], int, int, byte[], int)}.
+     */
+    private int blocos(ByteBuffer in, int inPos, int len, ByteBuffer out, int outPos) {
+        int total = nPendente + len;
+        int processar = !cifrar && padding == DesPadding.PKCS5 ? (total - 1) & ~7 : total & ~7;
+        if (processar <= 0) {
+            for (int i = 0; i < len; i++) {
+                pendente[nPendente++] = in.get(inPos + i);
+            }
+            return 0;
+        }
+
+        int escritos = 0;
+        if (nPendente > 0) {
+            int falta = 8 - nPendente;
+            for (int i = 0; i < falta; i++) {
+                pendente[nPendente + i] = in.get(inPos + i);
+            }
+            DesModes.putLong(out, outPos, processarBloco(DesModes.lerLong(pendente, 0)));
+            inPos += falta;
+            len -= falta;
+            outPos += 8;
+            processar -= 8;
+            escritos = 8;
+        }
+        estado = DesModes.processar(modo, cifrar, cifra, estado, in, inPos, processar, out, outPos);
+        nPendente = len - processar;
+        for (int i = 0; i < nPendente; i++) {
+            pendente[i] = in.get(inPos + processar + i);
+        }
+        return escritos + processar;
+    }
+
+    /**
+     * Se, no mesmo array, a saida seria gravada a frente de entrada ainda nao lida. No ECB
+     * e no CBC cada byte sai {@code nPendente} posicoes adiante da sua entrada, pois o
+     * bloco guardado e completado e gravado primeiro: com bytes guardados, mesmo a
+     * chamada no lugar ({@code inOff == outOff}) precisa da copia.
+     */
+    private boolean sobrepostos(int inOff, int len, int outOff) {
+        int adiante = modo == DesMode.CTR ? 0 : nPendente;
+        return outOff + adiante > inOff && outOff < inOff + len;
+    }
+
+    /**
+     * Processa um bloco no ECB ou CBC, atualizando o vetor do CBC.
+     */
+    private long processarBloco(long bloco) {
+        long resultado;
+        if (cifrar) {
+            resultado = DesModes.cifrarBloco(modo, cifra, estado, bloco);
+            if (modo == DesMode.CBC) {
+                estado = resultado;
+            }
+        } else {
+            resultado = DesModes.decifrarBloco(modo, cifra, estado, bloco);
+            if (modo == DesMode.CBC) {
+                estado = bloco;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Processa o bloco guardado, deixando em {@code ultimo} os bytes finais da mensagem.
+     *
+     * @return Quantos bytes de {@code ultimo} (a partir do mais significativo) sao saida
+     */
+    private int finalizar() {
+        if (modo == DesMode.CTR) {
+            return 0;
+        }
+        if (padding == DesPadding.NONE) {
+            if (nPendente != 0) {
+                throw new IllegalArgumentException("O tamanho nao e multiplo de 8 e nao ha padding");
+            }
+            return 0;
+        }
+        if (cifrar) {
+            ultimo = DesModes.cifrarBloco(modo, cifra, estado, DesModes.blocoComPadding(pendente, 0, nPendente));
+            return 8;
+        }
+        if (nPendente != 8) {
+            throw new IllegalArgumentException("O tamanho com padding deve ser multiplo de 8");
+        }
+        ultimo = DesModes.decifrarBloco(modo, cifra, estado, DesModes.lerLong(pendente, 0));
+        return 8 - DesModes.tamanhoPadding(ultimo);
+    }
+
+    /**
+     * CTR sobre buffers, como {@link #ctr(byte[], int, int, byte[], int)}.
+     */
+    private int ctr(ByteBuffer in, int inPos, int len, ByteBuffer out, int outPos) {
+        int escritos = 0;
+        while (usados < 8 && escritos < len) {
+            out.put(outPos + escritos, (byte) (in.get(inPos + escritos) ^ (fluxo >>> (56 - 8*usados))));
+            usados++;
+            escritos++;
+        }
+        int completos = (len - escritos) & ~7;
+        estado = DesModes.processar(DesMode.CTR, true, cifra, estado, in, inPos + escritos, completos,
+                                    out, outPos + escritos);
+        escritos += completos;
+        if (escritos < len) {
+            fluxo = cifra.encrypt(estado++);
+            usados = 0;
+            while (escritos < len) {
+                out.put(outPos + escritos, (byte) (in.get(inPos + escritos) ^ (fluxo >>> (56 - 8*usados))));
+                usados++;
+                escritos++;
+            }
+        }
+        return escritos;
+    }
+
+    /**
+     * CTR: usa o restante do bloco de fluxo atual, depois os blocos completos, e guarda o
+     * bloco de fluxo do ultimo bloco parcial.
+     */
+    private int ctr(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        int escritos = 0;
+        while (usados < 8 && escritos < len) {
+            out[outOff + escritos] = (byte) (in[inOff + escritos] ^ (fluxo >>> (56 - 8*usados)));
+            usados++;
+            escritos++;
+        }
+        int completos = (len - escritos) & ~7;
+        estado = DesModes.processar(DesMode.CTR, true, cifra, estado, in, inOff + escritos, completos,
+                                    out, outOff + escritos);
+        escritos += completos;
+        if (escritos < len) {
+            fluxo = cifra.encrypt(estado++);
+            usados = 0;
+            while (escritos < len) {
+                out[outOff + escritos] = (byte) (in[inOff + escritos] ^ (fluxo >>> (56 - 8*usados)));
+                usados++;
+                escritos++;
+            }
+        }
+        return escritos;
+    }
+}
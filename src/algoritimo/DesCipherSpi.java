@@ -0,0 +1,381 @@
+package algoritimo;
+
+import java.nio.ByteBuffer;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.InvalidParameterException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+
+/**
+ * Implementacao de {@link CipherSpi} sobre {@link DesCipher}, registrada por
+ * {@link DesProvider}.
+ * <p>
+ * Cada instancia guarda a ultima chave recebida e o seu escalonamento: um novo
+ * {@code init} com a mesma chave (por exemplo, apenas com outro IV) reaproveita as
+ * chaves por rodada. {@code update} e {@code doFinal} com {@link ByteBuffer}, inclusive
+ * diretos, nao alocam memoria por chamada; quando a entrada pode compartilhar memoria com
+ * a saida (o mesmo array, ou dois buffers diretos) ela e copiada antes, como nos
+ * metodos com {@code byte[]}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public abstract class DesCipherSpi extends CipherSpi {
+
+    /** {@code Cipher.getInstance("DES/...")}: chaves de 8 bytes. */
+    public static final class Des extends DesCipherSpi {
+
+        public Des() {
+            super("DES");
+        }
+
+        @Override
+        DesBlockCipher escalonar(byte[] chave) throws InvalidKeyException {
+            if (chave.length != 8) {
+                throw new InvalidKeyException("A chave DES deve ter 8 bytes");
+            }
+            return DesEngineType.padrao().criar(DesKeySchedule.of(DesModes.lerLong(chave, 0)));
+        }
+
+        @Override
+        protected int engineGetKeySize(Key key) throws InvalidKeyException {
+            chaveCodificada(key);
+            return 56;
+        }
+    }
+
+    /** {@code Cipher.getInstance("DESede/...")}: chaves de 16 (EDE2) ou 24 bytes (EDE3). */
+    public static final class TripleDes extends DesCipherSpi {
+
+        public TripleDes() {
+            super("DESede");
+        }
+
+        @Override
+        DesBlockCipher escalonar(byte[] chave) throws InvalidKeyException {
+            if (chave.length != 16 && chave.length != 24) {
+                throw new InvalidKeyException("A chave DESede deve ter 16 ou 24 bytes");
+            }
+            return DesEngineType.padrao().criar(TripleDesKeySchedule.of(chave));
+        }
+
+        @Override
+        protected int engineGetKeySize(Key key) throws InvalidKeyException {
+            return chaveCodificada(key).length == 16 ? 112 : 168;
+        }
+    }
+
+    private static final byte[] VAZIO = new byte[0];
+
+    private final String algoritmo;
+    private DesMode modo = DesMode.ECB;
+    private DesPadding padding = DesPadding.PKCS5;
+
+    private byte[] chave;
+    private DesBlockCipher escalonamento;
+    private byte[] iv;
+    private DesCipher cifra;
+    private ByteBuffer copia;
+
+    DesCipherSpi(String algoritmo) {
+        this.algoritmo = algoritmo;
+    }
+
+    /**
+     * Gera o escalonamento da chave, com o engine padrao.
+     */
+    abstract DesBlockCipher escalonar(byte[] chave) throws InvalidKeyException;
+
+    @Override
+    protected void engineSetMode(String mode) throws NoSuchAlgorithmException {
+        try {
+            modo = DesMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchAlgorithmException("Modo nao suportado: " + mode);
+        }
+    }
+
+    @Override
+    protected void engineSetPadding(String padding) throws NoSuchPaddingException {
+        switch (padding.toUpperCase(Locale.ROOT)) {
+            case "NOPADDING":    this.padding = DesPadding.NONE; break;
+            case "PKCS5PADDING": this.padding = DesPadding.PKCS5; break;
+            default: throw new NoSuchPaddingException("Padding nao suportado: " + padding);
+        }
+    }
+
+    @Override
+    protected int engineGetBlockSize() {
+        return 8;
+    }
+
+    @Override
+    protected int engineGetOutputSize(int inputLen) {
+        if (cifra == null) {
+            return padding == DesPadding.PKCS5 ? DesModes.outputSize(padding, inputLen) : inputLen;
+        }
+        return cifra.getOutputSize(inputLen);
+    }
+
+    @Override
+    protected byte[] engineGetIV() {
+        return iv == null ? null : iv.clone();
+    }
+
+    @Override
+    protected AlgorithmParameters engineGetParameters() {
+        if (iv == null) {
+            return null;
+        }
+        try {
+            AlgorithmParameters parametros = AlgorithmParameters.getInstance(algoritmo);
+            parametros.init(new IvParameterSpec(iv));
+            return parametros;
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+        try {
+            engineInit(opmode, key, (AlgorithmParameterSpec) null, random);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new InvalidKeyException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        IvParameterSpec spec = null;
+        if (params != null) {
+            try {
+                spec = params.getParameterSpec(IvParameterSpec.class);
+            } catch (InvalidParameterSpecException e) {
+                throw new InvalidAlgorithmParameterException("Parametros sem IV", e);
+            }
+        }
+        engineInit(opmode, key, spec, random);
+    }
+
+    @Override
+    protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        boolean cifrar;
+        switch (opmode) {
+            case Cipher.ENCRYPT_MODE: cifrar = true; break;
+            case Cipher.DECRYPT_MODE: cifrar = false; break;
+            default: throw new InvalidParameterException("Apenas ENCRYPT_MODE e DECRYPT_MODE sao suportados");
+        }
+
+        byte[] novoIv = null;
+        if (modo == DesMode.ECB) {
+            if (params != null) {
+                throw new InvalidAlgorithmParameterException("O modo ECB nao usa IV");
+            }
+        } else if (params instanceof IvParameterSpec) {
+            novoIv = ((IvParameterSpec) params).getIV();
+            if (novoIv.length != 8) {
+                throw new InvalidAlgorithmParameterException("O IV deve ter 8 bytes");
+            }
+        } else if (params != null) {
+            throw new InvalidAlgorithmParameterException("Parametros nao suportados: " + params.getClass().getName());
+        } else if (cifrar) {
+            novoIv = new byte[8];
+            (random != null ? random : new SecureRandom()).nextBytes(novoIv);
+        } else {
+            throw new InvalidKeyException("O modo " + modo + " precisa de IV para descriptografar");
+        }
+
+        // reaproveita o escalonamento se a chave nao mudou
+        byte[] codificada = chaveCodificada(key);
+        if (chave == null || !MessageDigest.isEqual(chave, codificada)) {
+            escalonamento = escalonar(codificada);
+            chave = codificada;
+        }
+
+        iv = novoIv;
+        long vetor = iv == null ? 0 : DesModes.lerLong(iv, 0);
+        try {
+            if (cifra == null) {
+                cifra = new DesCipher(cifrar, modo, padding, escalonamento, vetor);
+            } else {
+                cifra.init(cifrar, modo, padding, escalonamento, vetor);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidAlgorithmParameterException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+        if (input == null) {
+            input = VAZIO;
+        }
+        byte[] saida = new byte[iniciada().updateOutputSize(inputLen)];
+        int n = cifra.update(input, inputOffset, inputLen, saida, 0);
+        return n == saida.length ? saida : Arrays.copyOf(saida, n);
+    }
+
+    @Override
+    protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException {
+        if (input == null) {
+            input = VAZIO;
+        }
+        verificarSaida(output.length - outputOffset, iniciada().updateOutputSize(inputLen));
+        if (sobrepostos(input, inputOffset, inputLen, output, outputOffset)) {
+            input = Arrays.copyOfRange(input, inputOffset, inputOffset + inputLen);
+            inputOffset = 0;
+        }
+        return cifra.update(input, inputOffset, inputLen, output, outputOffset);
+    }
+
+    @Override
+    protected int engineUpdate(ByteBuffer input, ByteBuffer output) throws ShortBufferException {
+        verificarSaida(output.remaining(), iniciada().updateOutputSize(input.remaining()));
+        if (sobrepostos(input, output)) {
+            input = copiar(input);
+        }
+        return cifra.update(input, output);
+    }
+
+    @Override
+    protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen)
+            throws IllegalBlockSizeException, BadPaddingException {
+        if (input == null) {
+            input = VAZIO;
+        }
+        verificarTamanhoFinal(iniciada().pendentes() + inputLen);
+        byte[] saida = new byte[cifra.getOutputSize(inputLen)];
+        int n;
+        try {
+            n = cifra.doFinal(input, inputOffset, inputLen, saida, 0);
+        } catch (IllegalArgumentException e) {
+            throw new BadPaddingException(e.getMessage());
+        }
+        return n == saida.length ? saida : Arrays.copyOf(saida, n);
+    }
+
+    @Override
+    protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        if (input == null) {
+            input = VAZIO;
+        }
+        verificarTamanhoFinal(iniciada().pendentes() + inputLen);
+        verificarSaida(output.length - outputOffset, cifra.getOutputSize(inputLen));
+        if (sobrepostos(input, inputOffset, inputLen, output, outputOffset)) {
+            input = Arrays.copyOfRange(input, inputOffset, inputOffset + inputLen);
+            inputOffset = 0;
+        }
+        try {
+            return cifra.doFinal(input, inputOffset, inputLen, output, outputOffset);
+        } catch (IllegalArgumentException e) {
+            throw new BadPaddingException(e.getMessage());
+        }
+    }
+
+    @Override
+    protected int engineDoFinal(ByteBuffer input, ByteBuffer output)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+        verificarTamanhoFinal(iniciada().pendentes() + input.remaining());
+        verificarSaida(output.remaining(), cifra.getOutputSize(input.remaining()));
+        if (sobrepostos(input, output)) {
+            input = copiar(input);
+        }
+        try {
+            return cifra.doFinal(input, output);
+        } catch (IllegalArgumentException e) {
+            throw new BadPaddingException(e.getMessage());
+        }
+    }
+
+    private DesCipher iniciada() {
+        if (cifra == null) {
+            throw new IllegalStateException("Cifra nao iniciada");
+        }
+        return cifra;
+    }
+
+    /**
+     * Byte[] de chave no formato RAW.
+     */
+    static byte[] chaveCodificada(Key key) throws InvalidKeyException {
+        byte[] codificada = key == null ? null : key.getEncoded();
+        if (codificada == null || !"RAW".equalsIgnoreCase(key.getFormat())) {
+            throw new InvalidKeyException("A chave deve estar no formato RAW");
+        }
+        return codificada;
+    }
+
+    private static void verificarSaida(int disponivel, int necessario) throws ShortBufferException {
+        if (disponivel < necessario) {
+            throw new ShortBufferException("Buffer de saida pequeno demais: " + necessario + " bytes necessarios");
+        }
+    }
+
+    /**
+     * Verifica o tamanho total da mensagem antes de terminar, para distinguir
+     * {@link IllegalBlockSizeException} de {@link BadPaddingException}.
+     */
+    private void verificarTamanhoFinal(int total) throws IllegalBlockSizeException {
+        if (modo == DesMode.CTR) {
+            return;
+        }
+        boolean invalido = (total & 7) != 0 || (!cifra.isEncrypt() && padding == DesPadding.PKCS5 && total == 0);
+        if (invalido && (padding == DesPadding.NONE || !cifra.isEncrypt())) {
+            cifra.reset();
+            throw new IllegalBlockSizeException("O tamanho da mensagem deve ser multiplo de 8");
+        }
+    }
+
+    private static boolean sobrepostos(byte[] in, int inOff, int len, byte[] out, int outOff) {
+        return in == out && inOff < outOff + len + 8 && outOff < inOff + len;
+    }
+
+    /**
+     * Buffers com array comparam o array e as faixas, como {@link #sobrepostos(byte[], int, int, byte[], int)}.
+     * Dois buffers diretos (ou somente leitura) podem ser visoes da mesma memoria sem que
+     * isso seja visivel, e sao tratados como sobrepostos; um direto e um no heap nunca sao.
+     */
+    private static boolean sobrepostos(ByteBuffer in, ByteBuffer out) {
+        if (in.hasArray() && out.hasArray()) {
+            return sobrepostos(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                               out.array(), out.arrayOffset() + out.position());
+        }
+        return in.isDirect() == out.isDirect();
+    }
+
+    /**
+     * Copia os bytes restantes de {@code input} (avancando a sua posicao) para um buffer
+     * da instancia, reaproveitado entre chamadas.
+     */
+    private ByteBuffer copiar(ByteBuffer input) {
+        if (copia == null || copia.capacity() < input.remaining()) {
+            copia = ByteBuffer.allocate(input.remaining());
+        }
+        copia.clear();
+        copia.put(input);
+        copia.flip();
+        return copia;
+    }
+}
@@ -0,0 +1,301 @@
+package algoritimo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Leitura com acesso aleatorio de arquivos cifrados em modo CTR.
+ * <p>
+ * No CTR o bloco {@code i} e cifrado com o contador {@code contadorInicial + i}, entao
+ * qualquer posicao pode ser descriptografada diretamente: apenas os blocos tocados pela
+ * leitura sao lidos do arquivo e processados, e ler o ultimo megabyte custa o mesmo que
+ * ler o primeiro.
+ * <p>
+ * Opcionalmente as paginas de {@link #TAMANHO_PAGINA} bytes ja descriptografadas ficam
+ * em um cache LRU limitado. {@link #read(ByteBuffer, long)} usa leituras posicionais do
+ * {@link FileChannel} e pode ser chamado por varias threads ao mesmo tempo; a posicao
+ * do canal ({@link #read(ByteBuffer)}, {@link #position(long)}) e compartilhada.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesCtrReader implements SeekableByteChannel {
+
+    /** Tamanho das paginas lidas e guardadas no cache (multiplo de 8). */
+    public static final int TAMANHO_PAGINA = 64 * 1024;
+
+    private final FileChannel canal;
+    private final DesBlockCipher cifra;
+    private final long contador;
+    private final long inicio;
+    private final Paginas cache;
+    /**
+     * Paginas de trabalho (diretas) deste leitor: uma por leitura em andamento, devolvidas
+     * ao fim da leitura e descartadas no {@link #close()}.
+     */
+    private final ArrayDeque<ByteBuffer> livres = new ArrayDeque<>();
+    private long posicao;
+    private volatile boolean aberto = true;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param canal           Arquivo cifrado
+     * @param cifra           Cifra de bloco
+     * @param contadorInicial Contador do primeiro bloco
+     * @param inicio          Posicao no arquivo onde comecam os dados cifrados (por exemplo,
+     *                        depois de um cabecalho)
+     * @param paginasCache    Numero de paginas mantidas no cache, ou 0 para nao usar cache
+     */
+    public DesCtrReader(FileChannel canal, DesBlockCipher cifra, long contadorInicial, long inicio,
+                        int paginasCache) {
+        if (canal == null || cifra == null || inicio < 0 || paginasCache < 0) {
+            throw new IllegalArgumentException("Canal ou cifra nulo, inicio ou cache negativo");
+        }
+        this.canal = canal;
+        this.cifra = cifra;
+        this.contador = contadorInicial;
+        this.inicio = inicio;
+        this.cache = paginasCache > 0 ? new Paginas(paginasCache) : null;
+    }
+
+    /**
+     * Abre o arquivo para leitura, sem cabecalho.
+     */
+    public static DesCtrReader open(Path arquivo, DesBlockCipher cifra, long contadorInicial, int paginasCache)
+            throws IOException {
+        return new DesCtrReader(FileChannel.open(arquivo, StandardOpenOption.READ), cifra, contadorInicial, 0,
+                                paginasCache);
+    }
+
+    /**
+     * Le a partir da posicao atual do canal, avancando-a.
+     */
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        int n = read(dst, posicao);
+        if (n > 0) {
+            posicao += n;
+        }
+        return n;
+    }
+
+    /**
+     * Le a partir de {@code posicao} sem alterar a posicao do canal. Pode ser chamado por
+     * varias threads ao mesmo tempo.
+     *
+     * @return O numero de bytes lidos, ou -1 se {@code posicao} estiver no fim ou alem
+     */
+    public int read(ByteBuffer dst, long posicao) throws IOException {
+        verificarAberto();
+        if (posicao < 0) {
+            throw new IllegalArgumentException("Posicao negativa: " + posicao);
+        }
+        long tamanho = size();
+        if (posicao >= tamanho) {
+            return -1;
+        }
+        int total = (int) Math.min(dst.remaining(), tamanho - posicao);
+        int lidos = 0;
+        while (lidos < total) {
+            long p = posicao + lidos;
+            long pagina = p / TAMANHO_PAGINA;
+            int off = (int) (p % TAMANHO_PAGINA);
+            int n = cache != null ? lerDoCache(dst, pagina, off, total - lidos, tamanho)
+                                  : lerDireto(dst, p, total - lidos, tamanho);
+            lidos += n;
+        }
+        return lidos;
+    }
+
+    /**
+     * Le e descriptografa apenas os blocos que contem {@code [p, p + len)}, limitado a uma pagina.
+     */
+    private int lerDireto(ByteBuffer dst, long p, int len, long tamanho) throws IOException {
+        long bloco = p & ~7L;
+        int ate = (int) Math.min(Math.min(bloco + TAMANHO_PAGINA, tamanho) - bloco, (p - bloco) + len);
+        ByteBuffer buf = obterPagina();
+        try {
+            lerCompleto(buf, bloco, ate);
+            DesModes.processar(DesMode.CTR, true, cifra, contador + (bloco >>> 3), buf, 0, ate, buf, 0);
+            buf.limit(ate).position((int) (p - bloco));
+            dst.put(buf);
+        } finally {
+            devolverPagina(buf);
+        }
+        return ate - (int) (p - bloco);
+    }
+
+    /**
+     * Le de uma pagina do cache, carregando-a se ainda nao estiver la. Uma ultima pagina
+     * guardada antes de o arquivo crescer e mais curta do que o trecho pedido e carregada
+     * de novo.
+     */
+    private int lerDoCache(ByteBuffer dst, long pagina, int off, int len, long tamanho) throws IOException {
+        long p = pagina * TAMANHO_PAGINA;
+        int tamanhoPagina = (int) Math.min(TAMANHO_PAGINA, tamanho - p);
+        byte[] dados = cache.obter(pagina);
+        if (dados == null || dados.length < tamanhoPagina) {
+            misses.increment();
+            dados = new byte[tamanhoPagina];
+            ByteBuffer buf = obterPagina();
+            try {
+                lerCompleto(buf, p, tamanhoPagina);
+                buf.get(dados);
+            } finally {
+                devolverPagina(buf);
+            }
+            DesModes.processar(DesMode.CTR, true, cifra, contador + (p >>> 3), dados, 0, tamanhoPagina, dados, 0);
+            cache.guardar(pagina, dados);
+        } else {
+            hits.increment();
+        }
+        int n = Math.min(len, dados.length - off);
+        dst.put(dados, off, n);
+        return n;
+    }
+
+    private ByteBuffer obterPagina() {
+        synchronized (livres) {
+            ByteBuffer buf = livres.pollFirst();
+            if (buf != null) {
+                return buf;
+            }
+        }
+        return ByteBuffer.allocateDirect(TAMANHO_PAGINA);
+    }
+
+    private void devolverPagina(ByteBuffer buf) {
+        synchronized (livres) {
+            if (aberto) {
+                livres.addFirst(buf);
+            }
+        }
+    }
+
+    /**
+     * Le {@code n} bytes cifrados a partir da posicao {@code p} dos dados para o inicio de {@code buf}.
+     */
+    private void lerCompleto(ByteBuffer buf, long p, int n) throws IOException {
+        buf.clear().limit(n);
+        while (buf.hasRemaining()) {
+            if (canal.read(buf, inicio + p + buf.position()) < 0) {
+                throw new EOFException("Arquivo truncado durante a leitura");
+            }
+        }
+        buf.flip();
+    }
+
+    /** @return Tamanho dos dados cifrados (o arquivo sem o cabecalho) */
+    @Override
+    public long size() throws IOException {
+        verificarAberto();
+        return Math.max(0, canal.size() - inicio);
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        verificarAberto();
+        return posicao;
+    }
+
+    @Override
+    public synchronized DesCtrReader position(long novaPosicao) throws IOException {
+        verificarAberto();
+        if (novaPosicao < 0) {
+            throw new IllegalArgumentException("Posicao negativa: " + novaPosicao);
+        }
+        posicao = novaPosicao;
+        return this;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    /** @return Leituras atendidas pelo cache */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /** @return Paginas lidas do arquivo e guardadas no cache */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return aberto;
+    }
+
+    /**
+     * Fecha o canal e o arquivo, descartando o cache e as paginas de trabalho.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (livres) {
+            aberto = false;
+            livres.clear();
+        }
+        if (cache != null) {
+            cache.limpar();
+        }
+        canal.close();
+    }
+
+    private void verificarAberto() throws ClosedChannelException {
+        if (!aberto) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Cache LRU de paginas descriptografadas. As paginas sao imutaveis depois de guardadas,
+     * entao a copia para o chamador acontece fora do lock.
+     */
+    private static final class Paginas {
+
+        private final LinkedHashMap<Long, byte[]> mapa;
+
+        Paginas(int limite) {
+            this.mapa = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, byte[]> maisAntiga) {
+                    return size() > limite;
+                }
+            };
+        }
+
+        synchronized byte[] obter(long pagina) {
+            return mapa.get(pagina);
+        }
+
+        synchronized void guardar(long pagina, byte[] dados) {
+            mapa.put(pagina, dados);
+        }
+
+        synchronized void limpar() {
+            mapa.clear();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package algoritimo;
+/**
+ * Implementacao do algoritmo DES operando sobre blocos compactados em {@code long}.
+ * <p>
+ * Cada bloco de 64 bits e armazenado em um unico {@code long}, onde o bit 1 do DES
+ * (o mais significativo) corresponde ao bit 63 do {@code long}. As chaves por rodada
+ * sao armazenadas como 48 bits nos bits menos significativos de um {@code long}.
+ * <p>
+ * As permutacoes inicial e final, a expansao E e a permutacao P sao feitas com
+ * deslocamentos e mascaras, e as S-boxes sao combinadas com a permutacao P em
+ * tabelas pre-calculadas (SP), de modo que nenhum array e alocado por bloco.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesEngine {
+
+    /** Tabela de permutacao PC-1 (escolha de 56 bits da chave). */
+    private static final byte[] PC1 = {
+        57, 49, 41, 33, 25, 17,  9,  1, 58, 50, 42, 34, 26, 18,
+        10,  2, 59, 51, 43, 35, 27, 19, 11,  3, 60, 52, 44, 36,
+        63, 55, 47, 39, 31, 23, 15,  7, 62, 54, 46, 38, 30, 22,
+        14,  6, 61, 53, 45, 37, 29, 21, 13,  5, 28, 20, 12,  4 };
+
+    /** Tabela de permutacao PC-2 (escolha de 48 bits de CnDn). */
+    private static final byte[] PC2 = {
+        14, 17, 11, 24,  1,  5,  3, 28, 15,  6, 21, 10,
+        23, 19, 12,  4, 26,  8, 16,  7, 27, 20, 13,  2,
+        41, 52, 31, 37, 47, 55, 30, 40, 51, 45, 33, 48,
+        44, 49, 39, 56, 34, 53, 46, 42, 50, 36, 29, 32 };
+
+    /** Numero de shifts para esquerda de Cn e Dn em cada rodada. */
+    private static final byte[] SHIFTS = { 1, 1, 2, 2, 2, 2, 2, 2, 1, 2, 2, 2, 2, 2, 2, 1 };
+
+    /** Tabela de permutacao P aplicada na saida das S-boxes. */
+    private static final byte[] P = {
+        16,  7, 20, 21, 29, 12, 28, 17,  1, 15, 23, 26,  5, 18, 31, 10,
+         2,  8, 24, 14, 32, 27,  3,  9, 19, 13, 30,  6, 22, 11,  4, 25 };
+
+    /** S-boxes S1..S8, indexadas por [linha][coluna]. */
+    static final byte[][][] SBOX = {
+        { {14,4,13,1,2,15,11,8,3,10,6,12,5,9,0,7},     // S1
+            {0,15,7,4,14,2,13,1,10,6,12,11,9,5,3,8},
+            {4,1,14,8,13,6,2,11,15,12,9,7,3,10,5,0},
+            {15,12,8,2,4,9,1,7,5,11,3,14,10,0,6,13} },
+        { {15,1,8,14,6,11,3,4,9,7,2,13,12,0,5,10},     // S2
+            {3,13,4,7,15,2,8,14,12,0,1,10,6,9,11,5},
+            {0,14,7,11,10,4,13,1,5,8,12,6,9,3,2,15},
+            {13,8,10,1,3,15,4,2,11,6,7,12,0,5,14,9} },
+        { {10,0,9,14,6,3,15,5,1,13,12,7,11,4,2,8},     // S3
+            {13,7,0,9,3,4,6,10,2,8,5,14,12,11,15,1},
+            {13,6,4,9,8,15,3,0,11,1,2,12,5,10,14,7},
+            {1,10,13,0,6,9,8,7,4,15,14,3,11,5,2,12} },
+        { {7,13,14,3,0,6,9,10,1,2,8,5,11,12,4,15},     // S4
+            {13,8,11,5,6,15,0,3,4,7,2,12,1,10,14,9},
+            {10,6,9,0,12,11,7,13,15,1,3,14,5,2,8,4},
+            {3,15,0,6,10,1,13,8,9,4,5,11,12,7,2,14} },
+        { {2,12,4,1,7,10,11,6,8,5,3,15,13,0,14,9},     // S5
+            {14,11,2,12,4,7,13,1,5,0,15,10,3,9,8,6},
+            {4,2,1,11,10,13,7,8,15,9,12,5,6,3,0,14},
+            {11,8,12,7,1,14,2,13,6,15,0,9,10,4,5,3} },
+        { {12,1,10,15,9,2,6,8,0,13,3,4,14,7,5,11},     // S6
+            {10,15,4,2,7,12,9,5,6,1,13,14,0,11,3,8},
+            {9,14,15,5,2,8,12,3,7,0,4,10,1,13,11,6},
+            {4,3,2,12,9,5,15,10,11,14,1,7,6,0,8,13} },
+        { {4,11,2,14,15,0,8,13,3,12,9,7,5,10,6,1},     // S7
+            {13,0,11,7,4,9,1,10,14,3,5,12,2,15,8,6},
+            {1,4,11,13,12,3,7,14,10,15,6,8,0,5,9,2},
+            {6,11,13,8,1,4,10,7,9,5,0,15,14,2,3,12} },
+        { {13,2,8,4,6,15,11,1,10,9,3,14,5,0,12,7},     // S8
+            {1,15,13,8,10,3,7,4,12,5,6,11,0,14,9,2},
+            {7,11,4,1,9,12,14,2,0,6,10,13,15,3,5,8},
+            {2,1,14,7,4,10,8,13,15,12,9,0,3,5,6,11} } };
+
+    /*
+     * Tabelas SP: para cada S-box, o valor de 4 bits da S-box ja deslocado para a
+     * sua posicao e permutado por P. A funcao mangler vira 8 consultas e 7 ORs.
+     */
+    private static final int[] SP1 = new int[64], SP2 = new int[64], SP3 = new int[64], SP4 = new int[64],
+                               SP5 = new int[64], SP6 = new int[64], SP7 = new int[64], SP8 = new int[64];
+
+    static {
+        int[][] sp = { SP1, SP2, SP3, SP4, SP5, SP6, SP7, SP8 };
+        for (int s = 0; s < 8; s++) {
+            for (int b = 0; b < 64; b++) {
+                int linha = ((b >>> 4) & 2) | (b & 1);  // 2 outer bits
+                int coluna = (b >>> 1) & 0xF;           // 4 inner
+                int saida = SBOX[s][linha][coluna] << (28 - 4*s);
+                sp[s][b] = (int) permutar(saida & 0xFFFFFFFFL, 32, P);
+            }
+        }
+    }
+
+    private DesEngine() {
+    }
+
+    /**
+     * @return Copias das 8 tabelas SP, para implementacoes que fazem as consultas de outra
+     *         forma (por exemplo com gathers vetoriais)
+     */
+    static int[][] tabelasSp() {
+        return new int[][] { SP1.clone(), SP2.clone(), SP3.clone(), SP4.clone(),
+                             SP5.clone(), SP6.clone(), SP7.clone(), SP8.clone() };
+    }
+
+    /**
+     * Gera as 16 chaves de 48 bits por rodada a partir da chave de 64 bits.
+     *
+     * @param chave Chave de 56 bits armazenada em 64 bits (bits de paridade ignorados)
+     * @return      16 chaves por rodada, cada uma nos 48 bits menos significativos
+     */
+    public static long[] gerarChavesPorRodada(long chave) {
+        return gerarChavesPorRodada(chave, new long[16]);
+    }
+
+    /**
+     * Gera as 16 chaves por rodada no array informado, sem alocar memoria.
+     *
+     * @param chave Chave de 56 bits armazenada em 64 bits (bits de paridade ignorados)
+     * @param kn    Array de 16 posicoes que recebe as chaves por rodada
+     * @return      O proprio array {@code kn}
+     */
+    static long[] gerarChavesPorRodada(long chave, long[] kn) {
+        DesMetrics.escalonamento();
+        long pk = permutar(chave, 64, PC1);
+        int c = (int) (pk >>> 28) & 0x0FFFFFFF;  // C0
+        int d = (int) pk & 0x0FFFFFFF;           // D0
+
+        for (int i = 0; i < 16; i++) {
+            int s = SHIFTS[i];
+            c = ((c << s) | (c >>> (28 - s))) & 0x0FFFFFFF;
+            d = ((d << s) | (d >>> (28 - s))) & 0x0FFFFFFF;
+            long cndn = ((long) c << 28) | d;
+            kn[i] = permutar(cndn, 56, PC2);
+        }
+        return kn;
+    }
+
+    /**
+     * Criptografa um bloco de 64 bits com as chaves por rodada informadas.
+     *
+     * @param bloco           Texto simples de 64 bits
+     * @param chavesPorRodada 16 chaves de 48 bits geradas por {@link #gerarChavesPorRodada(long)}
+     * @return                Texto cifrado de 64 bits
+     */
+    public static long encryptBlock(long bloco, long[] chavesPorRodada) {
+        return permutacaoFinal(executarRodadas(permutacaoInicial(bloco), chavesPorRodada));
+    }
+
+    /**
+     * Descriptografa um bloco de 64 bits, aplicando as chaves por rodada em ordem inversa.
+     *
+     * @param bloco           Texto cifrado de 64 bits
+     * @param chavesPorRodada 16 chaves de 48 bits geradas por {@link #gerarChavesPorRodada(long)}
+     * @return                Texto simples de 64 bits
+     */
+    public static long decryptBlock(long bloco, long[] chavesPorRodada) {
+        return permutacaoFinal(executarRodadasInversas(permutacaoInicial(bloco), chavesPorRodada));
+    }
+
+    /**
+     * Criptografa um bloco de 64 bits com chaves por rodada ja pre-calculadas.
+     *
+     * @param bloco Texto simples de 64 bits
+     * @param ks    Chaves por rodada reutilizaveis
+     * @return      Texto cifrado de 64 bits
+     */
+    public static long encryptBlock(long bloco, DesKeySchedule ks) {
+        return encryptBlock(bloco, ks.kn());
+    }
+
+    /**
+     * Descriptografa um bloco de 64 bits com chaves por rodada ja pre-calculadas.
+     *
+     * @param bloco Texto cifrado de 64 bits
+     * @param ks    Chaves por rodada reutilizaveis
+     * @return      Texto simples de 64 bits
+     */
+    public static long decryptBlock(long bloco, DesKeySchedule ks) {
+        return encryptBlock(bloco, ks.knInverso());
+    }
+
+    /**
+     * Permutacao inicial (IP) feita com trocas de bits por deslocamentos e mascaras.
+     */
+    static long permutacaoInicial(long bloco) {
+        int l = (int) (bloco >>> 32);
+        int r = (int) bloco;
+        int w;
+        w = ((l >>> 4) ^ r) & 0x0F0F0F0F;  r ^= w; l ^= w << 4;
+        w = ((l >>> 16) ^ r) & 0x0000FFFF; r ^= w; l ^= w << 16;
+        w = ((r >>> 2) ^ l) & 0x33333333;  l ^= w; r ^= w << 2;
+        w = ((r >>> 8) ^ l) & 0x00FF00FF;  l ^= w; r ^= w << 8;
+        w = ((l >>> 1) ^ r) & 0x55555555;  r ^= w; l ^= w << 1;
+        return ((long) l << 32) | (r & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Permutacao final (IP^-1): as mesmas trocas da permutacao inicial em ordem inversa.
+     */
+    static long permutacaoFinal(long bloco) {
+        int l = (int) (bloco >>> 32);
+        int r = (int) bloco;
+        int w;
+        w = ((l >>> 1) ^ r) & 0x55555555;  r ^= w; l ^= w << 1;
+        w = ((r >>> 8) ^ l) & 0x00FF00FF;  l ^= w; r ^= w << 8;
+        w = ((r >>> 2) ^ l) & 0x33333333;  l ^= w; r ^= w << 2;
+        w = ((l >>> 16) ^ r) & 0x0000FFFF; r ^= w; l ^= w << 16;
+        w = ((l >>> 4) ^ r) & 0x0F0F0F0F;  r ^= w; l ^= w << 4;
+        return ((long) l << 32) | (r & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Executa as 16 rodadas do DES sobre o bloco ja permutado (L0R0).
+     *
+     * @return R16L16, o bloco de 64 bits antes da permutacao final
+     */
+    static long executarRodadas(long ip, long[] kn) {
+        return executarRodadas(ip, kn, 0);
+    }
+
+    /**
+     * Executa 16 rodadas do DES com as chaves {@code kn[inicio]..kn[inicio + 15]}.
+     * <p>
+     * Como o resultado R16L16 e exatamente a entrada esperada pela proxima cifra depois
+     * de IP(IP^-1(x)), chamadas seguidas encadeiam estagios (como no 3DES) sem aplicar
+     * as permutacoes intermediarias.
+     *
+     * @return R16L16, o bloco de 64 bits antes da permutacao final
+     */
+    static long executarRodadas(long ip, long[] kn, int inicio) {
+        int l = (int) (ip >>> 32);
+        int r = (int) ip;
+        for (int i = inicio; i < inicio + 16; i += 2) {
+            l ^= mangler(r, kn[i]);
+            r ^= mangler(l, kn[i + 1]);
+        }
+        return ((long) r << 32) | (l & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Executa as 16 rodadas do DES com as chaves por rodada em ordem inversa.
+     *
+     * @return R16L16, o bloco de 64 bits antes da permutacao final
+     */
+    static long executarRodadasInversas(long ip, long[] kn) {
+        int l = (int) (ip >>> 32);
+        int r = (int) ip;
+        for (int i = 15; i > 0; i -= 2) {
+            l ^= mangler(r, kn[i]);
+            r ^= mangler(l, kn[i - 1]);
+        }
+        return ((long) r << 32) | (l & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Funcao mangler: expansao E por rotacoes do bloco de 32 bits, XOR com a chave
+     * da rodada e consulta das tabelas SP (S-boxes seguidas da permutacao P).
+     *
+     * @param r 32-bit bloco Rn-1
+     * @param k 48-bit chave Kn
+     * @return  Resultado da funcao mangler
+     */
+    static int mangler(int r, long k) {
+        return SP1[(Integer.rotateRight(r, 27) ^ (int) (k >>> 42)) & 0x3F]
+             | SP2[(Integer.rotateRight(r, 23) ^ (int) (k >>> 36)) & 0x3F]
+             | SP3[(Integer.rotateRight(r, 19) ^ (int) (k >>> 30)) & 0x3F]
+             | SP4[(Integer.rotateRight(r, 15) ^ (int) (k >>> 24)) & 0x3F]
+             | SP5[(Integer.rotateRight(r, 11) ^ (int) (k >>> 18)) & 0x3F]
+             | SP6[(Integer.rotateRight(r, 7)  ^ (int) (k >>> 12)) & 0x3F]
+             | SP7[(Integer.rotateRight(r, 3)  ^ (int) (k >>> 6))  & 0x3F]
+             | SP8[(Integer.rotateLeft(r, 1)   ^ (int) k)          & 0x3F];
+    }
+
+    /**
+     * Permuta os bits de um valor conforme uma tabela de permutacao do DES.
+     *
+     * @param entrada       Valor com os bits de entrada nos bits menos significativos
+     * @param bitsEntrada   Numero de bits da entrada
+     * @param tabela        Tabela com as posicoes (a partir de 1) dos bits de entrada
+     * @return              Valor permutado com {@code tabela.length} bits
+     */
+    private static long permutar(long entrada, int bitsEntrada, byte[] tabela) {
+        long saida = 0;
+        for (int i = 0; i < tabela.length; i++) {
+            saida = (saida << 1) | ((entrada >>> (bitsEntrada - tabela[i])) & 1);
+        }
+        return saida;
+    }
+
+    /**
+     * Converte um bloco em binario (um bit por posicao do array) para {@code long}.
+     *
+     * @param bits  Array de 64 bits, o primeiro sendo o mais significativo
+     * @return      O bloco compactado
+     */
+    static long paraLong(int[] bits) {
+        return paraLong(bits, 0);
+    }
+
+    /**
+     * Converte os 64 bits de {@code bits} a partir de {@code off} para {@code long}.
+     */
+    static long paraLong(int[] bits, int off) {
+        long bloco = 0;
+        for (int i = off; i < off + 64; i++) {
+            bloco = (bloco << 1) | (bits[i] & 1);
+        }
+        return bloco;
+    }
+
+    /**
+     * Converte um bloco compactado em {@code long} para binario (um bit por posicao).
+     *
+     * @param bloco O bloco compactado
+     * @param bits  Array de 64 posicoes que recebe os bits
+     * @return      O proprio array {@code bits}
+     */
+    static int[] paraBits(long bloco, int[] bits) {
+        return paraBits(bloco, bits, 0);
+    }
+
+    /**
+     * Grava o bloco em binario nas 64 posicoes de {@code bits} a partir de {@code off}.
+     */
+    static int[] paraBits(long bloco, int[] bits, int off) {
+        for (int i = 0; i < 64; i++) {
+            bits[off + i] = (int) (bloco >>> (63 - i)) & 1;
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,137 @@
+package algoritimo;
+
+import java.util.Locale;
+
+/**
+ * Implementacoes do DES que podem ser escolhidas em tempo de execucao.
+ * <p>
+ * A implementacao padrao pode ser definida pela propriedade de sistema
+ * {@code algoritimo.des.engine} (por exemplo {@code -Dalgoritimo.des.engine=bitsliced}).
+ * <p>
+ * {@link #VECTOR} usa a Vector API, disponivel somente em JDK 17 ou superior com
+ * {@code --add-modules jdk.incubator.vector}; sem ela, ou em maquinas sem vetores de
+ * 512 bits, cria {@link DesInterleaved} em seu lugar.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public enum DesEngineType {
+
+    /** Um bloco por vez, com tabelas SP ({@link DesEngine}). */
+    SCALAR {
+        @Override
+        public DesBlockCipher criar(DesKeySchedule ks) {
+            return ks;
+        }
+
+        @Override
+        public DesBlockCipher criar(TripleDesKeySchedule ks) {
+            return ks;
+        }
+    },
+
+    /** 4 blocos intercalados por passada ({@link DesInterleaved}). */
+    INTERLEAVED {
+        @Override
+        public DesBlockCipher criar(DesKeySchedule ks) {
+            return new DesInterleaved(ks);
+        }
+
+        @Override
+        public DesBlockCipher criar(TripleDesKeySchedule ks) {
+            return new DesInterleaved(ks);
+        }
+    },
+
+    /**
+     * 64 blocos por passada ({@link DesBitsliced}); somente os lotes de varios blocos
+     * tem tempo constante, blocos isolados usam as tabelas SP.
+     */
+    BITSLICED {
+        @Override
+        public DesBlockCipher criar(DesKeySchedule ks) {
+            return new DesBitsliced(ks);
+        }
+
+        @Override
+        public DesBlockCipher criar(TripleDesKeySchedule ks) {
+            return new DesBitsliced(ks);
+        }
+    },
+
+    /**
+     * Um bloco por lane de vetores da Vector API ({@code DesVector}), ou
+     * {@link #INTERLEAVED} quando ela nao esta disponivel ({@link #vetorialDisponivel()}).
+     */
+    VECTOR {
+        @Override
+        public DesBlockCipher criar(DesKeySchedule ks) {
+            Fabrica f = Vetorial.FABRICA;
+            return f != null ? f.criar(ks) : INTERLEAVED.criar(ks);
+        }
+
+        @Override
+        public DesBlockCipher criar(TripleDesKeySchedule ks) {
+            Fabrica f = Vetorial.FABRICA;
+            return f != null ? f.criar(ks) : INTERLEAVED.criar(ks);
+        }
+    };
+
+    /** Propriedade de sistema que define a implementacao padrao. */
+    public static final String PROPRIEDADE = "algoritimo.des.engine";
+
+    /**
+     * Cria as cifras de uma implementacao compilada a parte, carregada por reflexao.
+     */
+    interface Fabrica {
+
+        DesBlockCipher criar(DesKeySchedule ks);
+
+        DesBlockCipher criar(TripleDesKeySchedule ks);
+    }
+
+    /**
+     * Carrega {@code DesVector} na primeira vez que {@link #VECTOR} e usado.
+     */
+    private static final class Vetorial {
+
+        static final Fabrica FABRICA = carregar();
+
+        /**
+         * Em JDK 8 a 16, sem o modulo {@code jdk.incubator.vector} ou com vetores estreitos
+         * a classe nao carrega e {@link #VECTOR} usa {@link #INTERLEAVED}.
+         */
+        private static Fabrica carregar() {
+            try {
+                return (Fabrica) Class.forName("algoritimo.DesVector$Fabrica").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return Se {@link #VECTOR} usa a Vector API nesta JVM (e nao {@link #INTERLEAVED})
+     */
+    public static boolean vetorialDisponivel() {
+        return Vetorial.FABRICA != null;
+    }
+
+    /**
+     * Cria a cifra de bloco desta implementacao para as chaves por rodada informadas.
+     */
+    public abstract DesBlockCipher criar(DesKeySchedule ks);
+
+    /**
+     * Cria a cifra de bloco Triple DES desta implementacao.
+     */
+    public abstract DesBlockCipher criar(TripleDesKeySchedule ks);
+
+    /**
+     * @return A implementacao definida em {@value #PROPRIEDADE}, ou {@link #SCALAR}
+     */
+    public static DesEngineType padrao() {
+        String nome = System.getProperty(PROPRIEDADE);
+        return nome == null ? SCALAR : valueOf(nome.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,248 @@
+package algoritimo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Ferramenta de linha de comando que criptografa e descriptografa arquivos.
+ * <p>
+ * A entrada e a saida sao mapeadas em memoria com {@link FileChannel#map}, em pedacos
+ * de 256 MiB para suportar arquivos maiores que 2 GB, e cada pedaco e processado
+ * diretamente entre os dois mapeamentos, sem copias intermediarias. O estado do modo
+ * (vetor do CBC ou contador do CTR) e carregado de um pedaco para o seguinte. Na
+ * descriptografia com padding o ultimo bloco e decifrado antes, para que o arquivo de
+ * saida ja seja criado com o tamanho final (nao e possivel truncar um arquivo ainda
+ * mapeado em todos os sistemas).
+ * <pre>
+ * java algoritimo.DesFileTool (-e | -d) -k CHAVE [-m ECB|CBC|CTR] [-iv VETOR]
+ *      [-p PKCS5|NONE] [-engine SCALAR|INTERLEAVED|BITSLICED|VECTOR] [-t THREADS] entrada saida
+ * </pre>
+ * A chave e o vetor sao informados em hexadecimal; o vetor e obrigatorio em CBC e CTR.
+ * Chaves de 16 digitos usam DES, e chaves de 32 ou 48 digitos usam Triple DES (EDE2 ou EDE3).
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesFileTool {
+
+    /** Tamanho de cada pedaco mapeado (multiplo de 8). */
+    static final int TAMANHO_PEDACO = 256 * 1024 * 1024;
+
+    private DesFileTool() {
+    }
+
+    /**
+     * Processa o arquivo de entrada inteiro, gravando o resultado no arquivo de saida.
+     *
+     * @return O numero de bytes gravados na saida
+     */
+    static long processar(boolean cifrar, DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                          DesParallel paralelo, String entrada, String saida) throws IOException {
+        try (RandomAccessFile arqEntrada = new RandomAccessFile(entrada, "r")) {
+            FileChannel in = arqEntrada.getChannel();
+            long tamanhoEntrada = in.size();
+            long tamanhoSaida = tamanhoSaida(cifrar, modo, padding, cifra, iv, in);
+            try (RandomAccessFile arqSaida = new RandomAccessFile(saida, "rw")) {
+                arqSaida.setLength(tamanhoSaida);
+                return processarPedacos(cifrar, modo, padding, cifra, iv, paralelo, in, tamanhoEntrada,
+                                        arqSaida.getChannel(), tamanhoSaida);
+            }
+        }
+    }
+
+    /**
+     * Mapeia e processa a entrada em pedacos de {@link #TAMANHO_PEDACO} bytes.
+     */
+    private static long processarPedacos(boolean cifrar, DesMode modo, DesPadding padding, DesBlockCipher cifra,
+                                         long iv, DesParallel paralelo, FileChannel in, long tamanhoEntrada,
+                                         FileChannel out, long tamanhoSaida) throws IOException {
+        long lidos = 0;
+        long escritos = 0;
+        long estado = iv;
+        do {
+            boolean ultimo = tamanhoEntrada - lidos <= TAMANHO_PEDACO;
+            int n = (int) (ultimo ? tamanhoEntrada - lidos : TAMANHO_PEDACO);
+            MappedByteBuffer bufEntrada = in.map(FileChannel.MapMode.READ_ONLY, lidos, n);
+            MappedByteBuffer bufSaida = out.map(FileChannel.MapMode.READ_WRITE, escritos,
+                                                ultimo ? tamanhoSaida - escritos : n);
+            DesPadding p = ultimo ? padding : DesPadding.NONE;
+
+            // o vetor do proximo pedaco no CBC e o ultimo bloco cifrado deste
+            long proximo = estado;
+            if (modo == DesMode.CTR) {
+                proximo = estado + (n >>> 3);
+            } else if (modo == DesMode.CBC && !cifrar && n > 0) {
+                proximo = DesModes.getLong(bufEntrada, n - 8);
+            }
+
+            int gravados = cifrar ? paralelo.encrypt(modo, p, cifra, estado, bufEntrada, bufSaida)
+                                  : paralelo.decrypt(modo, p, cifra, estado, bufEntrada, bufSaida);
+            if (modo == DesMode.CBC && cifrar && gravados > 0) {
+                proximo = DesModes.getLong(bufSaida, gravados - 8);
+            }
+
+            estado = proximo;
+            lidos += n;
+            escritos += gravados;
+        } while (lidos < tamanhoEntrada);
+        return escritos;
+    }
+
+    /**
+     * Calcula o tamanho da saida, validando o tamanho da entrada e, na descriptografia com
+     * PKCS#5, o padding do ultimo bloco. E chamado antes de abrir o arquivo de saida, que
+     * fica intocado quando a entrada e invalida.
+     *
+     * @throws IllegalArgumentException se o tamanho da entrada ou o padding forem invalidos
+     */
+    private static long tamanhoSaida(boolean cifrar, DesMode modo, DesPadding padding, DesBlockCipher cifra,
+                                     long iv, FileChannel in) throws IOException {
+        DesModes.verificarPadding(modo, padding);
+        long tamanho = in.size();
+        if (modo == DesMode.CTR) {
+            return tamanho;
+        }
+        if (padding == DesPadding.NONE) {
+            if ((tamanho & 7) != 0) {
+                throw new IllegalArgumentException("O tamanho nao e multiplo de 8 e nao ha padding: " + tamanho);
+            }
+            return tamanho;
+        }
+        if (cifrar) {
+            return (tamanho & ~7) + 8;
+        }
+        if (tamanho == 0 || (tamanho & 7) != 0) {
+            throw new IllegalArgumentException("O tamanho com padding deve ser multiplo de 8: " + tamanho);
+        }
+        return tamanho - tamanhoPadding(in, modo, cifra, iv);
+    }
+
+    /**
+     * Descriptografa o ultimo bloco da entrada (de tamanho multiplo de 8, ja validado) para
+     * saber quantos bytes de padding PKCS#5 serao removidos.
+     *
+     * @throws IllegalArgumentException se o padding for invalido
+     */
+    private static int tamanhoPadding(FileChannel in, DesMode modo, DesBlockCipher cifra, long iv)
+            throws IOException {
+        long tamanho = in.size();
+        // o ultimo bloco e, no CBC, o bloco cifrado anterior (ou o vetor)
+        int n = (int) Math.min(tamanho, 16);
+        ByteBuffer blocos = ByteBuffer.allocate(n);
+        while (blocos.hasRemaining()) {
+            if (in.read(blocos, tamanho - n + blocos.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        long estado = n == 16 ? blocos.getLong(0) : iv;
+        return DesModes.tamanhoPadding(DesModes.decifrarBloco(modo, cifra, estado, blocos.getLong(n - 8)));
+    }
+
+    /**
+     * Monta a cifra de bloco a partir da chave em hexadecimal.
+     */
+    static DesBlockCipher criarCifra(String chaveHex, DesEngineType engine) {
+        switch (chaveHex.length()) {
+            case 16:
+                return engine.criar(DesKeySchedule.of(Long.parseUnsignedLong(chaveHex, 16)));
+            case 32:
+            case 48:
+                byte[] chave = new byte[chaveHex.length() / 2];
+                for (int i = 0; i < chave.length; i += 8) {
+                    DesModes.escreverLong(chave, i, Long.parseUnsignedLong(chaveHex.substring(2*i, 2*i + 16), 16));
+                }
+                return engine.criar(TripleDesKeySchedule.of(chave));
+            default:
+                throw new IllegalArgumentException("A chave deve ter 16, 32 ou 48 digitos hexadecimais");
+        }
+    }
+
+    private static void uso() {
+        System.err.println("Uso: java algoritimo.DesFileTool (-e | -d) -k CHAVE [-m ECB|CBC|CTR] [-iv VETOR]");
+        System.err.println("          [-p PKCS5|NONE] [-engine SCALAR|INTERLEAVED|BITSLICED|VECTOR] [-t THREADS] entrada saida");
+        System.err.println("     -iv e obrigatorio em CBC e CTR");
+        System.exit(1);
+    }
+
+    public static void main(String[] args) {
+        Boolean cifrar = null;
+        String chave = null;
+        DesMode modo = DesMode.CBC;
+        DesPadding padding = null;
+        Long iv = null;
+        DesEngineType engine = DesEngineType.padrao();
+        int threads = 1;
+        String entrada = null;
+        String saida = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-e":      cifrar = true; break;
+                    case "-d":      cifrar = false; break;
+                    case "-k":      chave = args[++i]; break;
+                    case "-m":      modo = DesMode.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                    case "-iv":     iv = Long.parseUnsignedLong(args[++i], 16); break;
+                    case "-p":      padding = DesPadding.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                    case "-engine": engine = DesEngineType.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                    case "-t":      threads = Integer.parseInt(args[++i]); break;
+                    default:
+                        if (entrada == null) {
+                            entrada = args[i];
+                        } else if (saida == null) {
+                            saida = args[i];
+                        } else {
+                            uso();
+                        }
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Argumento invalido: " + e.getMessage());
+            uso();
+        }
+        if (cifrar == null || chave == null || entrada == null || saida == null) {
+            uso();
+        }
+        if (iv == null) {
+            if (modo != DesMode.ECB) {
+                System.err.println("Informe o vetor (-iv) para o modo " + modo);
+                uso();
+            }
+            iv = 0L;
+        }
+        if (padding == null) {
+            padding = modo == DesMode.CTR ? DesPadding.NONE : DesPadding.PKCS5;
+        }
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            DesBlockCipher cifra = criarCifra(chave, engine);
+            DesParallel paralelo = pool != null ? new DesParallel(pool, DesParallel.LIMIAR_PADRAO)
+                                                : new DesParallel(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+
+            long inicio = System.nanoTime();
+            long gravados = processar(cifrar, modo, padding, cifra, iv, paralelo, entrada, saida);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            System.out.println("--------------- DES -----------------------");
+            System.out.println(" Operacao : " + (cifrar ? "criptografar" : "descriptografar")
+                               + " (" + modo + ", " + padding + ", " + engine + ", " + threads + " thread(s))");
+            System.out.println(" Bytes    : " + gravados);
+            System.out.printf(Locale.ROOT, " Tempo    : %.3f s%n", segundos);
+            System.out.printf(Locale.ROOT, " Vazao    : %.1f MB/s%n", gravados / 1e6 / Math.max(segundos, 1e-9));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package algoritimo;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} que criptografa (ou descriptografa) os bytes lidos do stream de
+ * origem.
+ * <p>
+ * A origem e lida em pedacos para um buffer interno, e cada pedaco e processado de uma
+ * vez pela {@link DesCipher}; o padding e tratado quando a origem termina. A memoria
+ * usada e constante, qualquer que seja o tamanho dos dados.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public class DesInputStream extends FilterInputStream {
+
+    private final DesCipher cifra;
+    private final byte[] entrada;
+    private final byte[] saida;
+    private final byte[] umByte = new byte[1];
+    private int pos;
+    private int lim;
+    private boolean fim;
+
+    /**
+     * @param in    Stream de origem
+     * @param cifra Cifra incremental ja configurada
+     */
+    public DesInputStream(InputStream in, DesCipher cifra) {
+        this(in, cifra, DesOutputStream.TAMANHO_BUFFER);
+    }
+
+    /**
+     * @param in            Stream de origem
+     * @param cifra         Cifra incremental ja configurada
+     * @param tamanhoBuffer Quantos bytes sao lidos da origem por vez
+     */
+    public DesInputStream(InputStream in, DesCipher cifra, int tamanhoBuffer) {
+        super(in);
+        if (cifra == null || tamanhoBuffer < 8) {
+            throw new IllegalArgumentException("Cifra nula ou buffer menor que um bloco");
+        }
+        this.cifra = cifra;
+        this.entrada = new byte[tamanhoBuffer];
+        this.saida = new byte[tamanhoBuffer + 8];
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(umByte, 0, 1) == -1 ? -1 : umByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (pos == lim && !preencher()) {
+            return -1;
+        }
+        int n = Math.min(len, lim - pos);
+        System.arraycopy(saida, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    /**
+     * Le e processa mais um pedaco da origem.
+     *
+     * @return {@code false} se a origem e a mensagem terminaram
+     */
+    private boolean preencher() throws IOException {
+        while (pos == lim) {
+            if (fim) {
+                return false;
+            }
+            int n = in.read(entrada, 0, entrada.length);
+            pos = 0;
+            if (n < 0) {
+                fim = true;
+                try {
+                    lim = cifra.doFinal(saida, 0);
+                } catch (IllegalArgumentException e) {
+                    lim = 0;
+                    throw new IOException(e.getMessage(), e);
+                }
+            } else {
+                lim = cifra.update(entrada, 0, n, saida, 0);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long pulados = 0;
+        while (pulados < n && (pos < lim || preencher())) {
+            int k = (int) Math.min(n - pulados, lim - pos);
+            pos += k;
+            pulados += k;
+        }
+        return pulados;
+    }
+
+    @Override
+    public int available() {
+        return lim - pos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int limite) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset nao suportado");
+    }
+}
@@ -0,0 +1,124 @@
+package algoritimo;
+
+/**
+ * Implementacao do DES que cifra 4 blocos independentes intercalados.
+ * <p>
+ * Cada rodada do DES depende da anterior, e cada uma espera 8 consultas as tabelas SP;
+ * com um unico bloco o processador fica parado aguardando essas leituras. Aqui as
+ * rodadas de 4 blocos sao executadas lado a lado, com o estado de cada um em variaveis
+ * locais, de modo que as consultas dos 4 blocos se sobrepoem (paralelismo de instrucao
+ * em vez de instrucoes vetoriais). Grupos com menos de 4 blocos e blocos isolados sao
+ * delegados a implementacao escalar ({@link DesKeySchedule} ou {@link TripleDesKeySchedule}).
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesInterleaved implements DesBlockCipher {
+
+    /** Numero de blocos intercalados. */
+    public static final int LANES = 4;
+
+    private final DesBlockCipher escalar;
+    private final long[] kn;
+    private final long[] knInverso;
+
+    /**
+     * @param ks Chaves por rodada usadas em todos os blocos
+     */
+    public DesInterleaved(DesKeySchedule ks) {
+        this(ks, ks.kn(), ks.knInverso());
+    }
+
+    /**
+     * Triple DES intercalado: os tres estagios sao encadeados sem as permutacoes intermediarias.
+     *
+     * @param ks Chaves por rodada do Triple DES usadas em todos os blocos
+     */
+    public DesInterleaved(TripleDesKeySchedule ks) {
+        this(ks, ks.kn(), ks.knInverso());
+    }
+
+    private DesInterleaved(DesBlockCipher escalar, long[] kn, long[] knInverso) {
+        this.escalar = escalar;
+        this.kn = kn;
+        this.knInverso = knInverso;
+    }
+
+    @Override
+    public long encrypt(long bloco) {
+        return escalar.encrypt(bloco);
+    }
+
+    @Override
+    public long decrypt(long bloco) {
+        return escalar.decrypt(bloco);
+    }
+
+    @Override
+    public void encryptBlocks(long[] blocos, int off, int n) {
+        int i = processar(blocos, off, n, kn);
+        for (; i < off + n; i++) {
+            blocos[i] = escalar.encrypt(blocos[i]);
+        }
+    }
+
+    @Override
+    public void decryptBlocks(long[] blocos, int off, int n) {
+        int i = processar(blocos, off, n, knInverso);
+        for (; i < off + n; i++) {
+            blocos[i] = escalar.decrypt(blocos[i]);
+        }
+    }
+
+    @Override
+    public int blocosPorLote() {
+        return LANES;
+    }
+
+    /**
+     * Processa os grupos completos de 4 blocos.
+     *
+     * @param kn 16 chaves por rodada na ordem em que sao aplicadas, ou 48 no Triple DES
+     * @return   O indice do primeiro bloco nao processado
+     */
+    static int processar(long[] blocos, int off, int n, long[] kn) {
+        int fim = off + (n & ~(LANES - 1));
+        for (int i = off; i < fim; i += LANES) {
+            long b0 = DesEngine.permutacaoInicial(blocos[i]);
+            long b1 = DesEngine.permutacaoInicial(blocos[i + 1]);
+            long b2 = DesEngine.permutacaoInicial(blocos[i + 2]);
+            long b3 = DesEngine.permutacaoInicial(blocos[i + 3]);
+            int l0 = (int) (b0 >>> 32), r0 = (int) b0;
+            int l1 = (int) (b1 >>> 32), r1 = (int) b1;
+            int l2 = (int) (b2 >>> 32), r2 = (int) b2;
+            int l3 = (int) (b3 >>> 32), r3 = (int) b3;
+
+            for (int e = 0; e < kn.length; e += 16) {
+                for (int j = e; j < e + 16; j += 2) {
+                    long k = kn[j];
+                    l0 ^= DesEngine.mangler(r0, k);
+                    l1 ^= DesEngine.mangler(r1, k);
+                    l2 ^= DesEngine.mangler(r2, k);
+                    l3 ^= DesEngine.mangler(r3, k);
+                    k = kn[j + 1];
+                    r0 ^= DesEngine.mangler(l0, k);
+                    r1 ^= DesEngine.mangler(l1, k);
+                    r2 ^= DesEngine.mangler(l2, k);
+                    r3 ^= DesEngine.mangler(l3, k);
+                }
+                // R16L16: no Triple DES e a entrada do proximo estagio, sem IP^-1 e IP
+                int t;
+                t = l0; l0 = r0; r0 = t;
+                t = l1; l1 = r1; r1 = t;
+                t = l2; l2 = r2; r2 = t;
+                t = l3; l3 = r3; r3 = t;
+            }
+
+            blocos[i]     = DesEngine.permutacaoFinal(((long) l0 << 32) | (r0 & 0xFFFFFFFFL));
+            blocos[i + 1] = DesEngine.permutacaoFinal(((long) l1 << 32) | (r1 & 0xFFFFFFFFL));
+            blocos[i + 2] = DesEngine.permutacaoFinal(((long) l2 << 32) | (r2 & 0xFFFFFFFFL));
+            blocos[i + 3] = DesEngine.permutacaoFinal(((long) l3 << 32) | (r3 & 0xFFFFFFFFL));
+        }
+        return fim;
+    }
+}
@@ -0,0 +1,83 @@
+package algoritimo;
+/**
+ * Chaves por rodada pre-calculadas para uma chave DES.
+ * <p>
+ * O objeto e imutavel e pode ser compartilhado entre threads: as 16 chaves por rodada
+ * (e a sua ordem inversa, usada na descriptografia) sao geradas uma unica vez e
+ * reutilizadas em todos os blocos cifrados com a mesma chave.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesKeySchedule implements DesBlockCipher {
+
+    private final long chave;
+    private final long[] kn;
+    private final long[] knInverso;
+
+    private DesKeySchedule(long chave) {
+        this.chave = chave;
+        this.kn = DesEngine.gerarChavesPorRodada(chave);
+        this.knInverso = new long[16];
+        for (int i = 0; i < 16; i++) {
+            knInverso[i] = kn[15 - i];
+        }
+    }
+
+    /**
+     * Gera as chaves por rodada para a chave informada.
+     *
+     * @param chave Chave de 56 bits armazenada em 64 bits
+     * @return      As chaves por rodada da chave
+     */
+    public static DesKeySchedule of(long chave) {
+        return new DesKeySchedule(chave);
+    }
+
+    /**
+     * @return A chave de 64 bits que originou este objeto
+     */
+    public long chave() {
+        return chave;
+    }
+
+    /**
+     * @return Copia das 16 chaves de 48 bits por rodada, na ordem da criptografia
+     */
+    public long[] chavesPorRodada() {
+        return kn.clone();
+    }
+
+    /**
+     * @return Copia das 16 chaves de 48 bits por rodada, na ordem da descriptografia
+     */
+    public long[] chavesPorRodadaInversas() {
+        return knInverso.clone();
+    }
+
+    /**
+     * Criptografa um bloco de 64 bits.
+     */
+    @Override
+    public long encrypt(long bloco) {
+        return DesEngine.encryptBlock(bloco, kn);
+    }
+
+    /**
+     * Descriptografa um bloco de 64 bits.
+     */
+    @Override
+    public long decrypt(long bloco) {
+        return DesEngine.encryptBlock(bloco, knInverso);
+    }
+
+    /** Chaves por rodada sem copia, para uso interno do pacote. */
+    long[] kn() {
+        return kn;
+    }
+
+    /** Chaves por rodada inversas sem copia, para uso interno do pacote. */
+    long[] knInverso() {
+        return knInverso;
+    }
+}
@@ -0,0 +1,158 @@
+package algoritimo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache limitado e concorrente de {@link DesKeySchedule}, indexado pela chave de 64 bits.
+ * <p>
+ * O cache e dividido em segmentos, cada um com o seu proprio lock e uma fila LRU
+ * limitada, para que threads consultando chaves diferentes nao disputem o mesmo lock.
+ * Quando um segmento fica cheio, a chave usada ha mais tempo e descartada.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesKeyScheduleCache {
+
+    private final Segmento[] segmentos;
+    private final int capacidade;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cria um cache com ate 16 segmentos, mantendo pelo menos 32 chaves por segmento
+     * para que a LRU de cada segmento nao fique pequena demais.
+     *
+     * @param capacidade Numero maximo de chaves mantidas no cache
+     */
+    public DesKeyScheduleCache(int capacidade) {
+        this(capacidade, Math.max(1, Math.min(16, capacidade / 32)));
+    }
+
+    /**
+     * @param capacidade        Numero maximo de chaves mantidas no cache
+     * @param numeroSegmentos   Numero de segmentos (arredondado para potencia de 2)
+     */
+    public DesKeyScheduleCache(int capacidade, int numeroSegmentos) {
+        if (capacidade < 1 || numeroSegmentos < 1) {
+            throw new IllegalArgumentException("Capacidade e segmentos devem ser positivos");
+        }
+        int n = Integer.highestOneBit(Math.min(numeroSegmentos, capacidade));
+        this.capacidade = capacidade;
+        this.segmentos = new Segmento[n];
+        for (int i = 0; i < n; i++) {
+            // distribui a capacidade sem ultrapassar o total
+            segmentos[i] = new Segmento(capacidade / n + (i < capacidade % n ? 1 : 0));
+        }
+    }
+
+    /**
+     * Retorna as chaves por rodada da chave, gerando-as apenas se nao estiverem no cache.
+     *
+     * @param chave Chave de 56 bits armazenada em 64 bits
+     * @return      As chaves por rodada da chave
+     */
+    public DesKeySchedule get(long chave) {
+        Segmento segmento = segmentoDe(chave);
+        Long k = chave;
+        DesKeySchedule ks;
+        synchronized (segmento) {
+            ks = segmento.get(k);
+        }
+        if (ks != null) {
+            hits.increment();
+            DesMetrics.cache(true);
+            return ks;
+        }
+        misses.increment();
+        DesMetrics.cache(false);
+
+        // gera fora do lock para nao bloquear outras chaves do mesmo segmento
+        DesKeySchedule novo = DesKeySchedule.of(chave);
+        synchronized (segmento) {
+            ks = segmento.get(k);
+            if (ks == null) {
+                segmento.put(k, novo);
+                ks = novo;
+            }
+        }
+        return ks;
+    }
+
+    /**
+     * Remove todas as chaves do cache. Os contadores sao mantidos.
+     */
+    public void clear() {
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                segmento.clear();
+            }
+        }
+    }
+
+    /**
+     * @return Numero de chaves atualmente no cache
+     */
+    public int size() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                total += segmento.size();
+            }
+        }
+        return total;
+    }
+
+    /** @return Numero maximo de chaves mantidas no cache */
+    public int capacity() {
+        return capacidade;
+    }
+
+    /** @return Numero de consultas atendidas pelo cache */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /** @return Numero de consultas que precisaram gerar as chaves por rodada */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** @return Numero de chaves descartadas por falta de espaco */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segmento segmentoDe(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return segmentos[(int) (h >>> 32) & (segmentos.length - 1)];
+    }
+
+    /**
+     * Segmento do cache: LinkedHashMap em ordem de acesso que descarta a entrada mais antiga.
+     */
+    private final class Segmento extends LinkedHashMap<Long, DesKeySchedule> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int limite;
+
+        Segmento(int limite) {
+            super(16, 0.75f, true);
+            this.limite = limite;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, DesKeySchedule> maisAntiga) {
+            if (size() > limite) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package algoritimo;
+
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Busca de chave por texto conhecido em um espaco de chaves parcialmente conhecido.
+ * <p>
+ * Dados pares (texto simples, texto cifrado), a chave base com os bits conhecidos e uma
+ * mascara com os bits desconhecidos, todas as chaves candidatas sao testadas em varias
+ * threads. Os bits de paridade (o menos significativo de cada byte) nao afetam o DES e
+ * sao retirados da mascara.
+ * <p>
+ * As candidatas de cada unidade de trabalho sao percorridas em codigo de Gray, de modo
+ * que duas candidatas seguidas diferem em um unico bit. Como cada bit das chaves por
+ * rodada e apenas uma copia de um bit da chave, trocar um bit da chave equivale a um
+ * XOR nas 16 chaves por rodada, em vez de gerar todas novamente. As permutacoes IP e
+ * IP^-1 tambem sao retiradas do laco: compara-se R16L16 com IP(texto cifrado).
+ * <p>
+ * O progresso e um indice no espaco de candidatas: todas as candidatas abaixo de
+ * {@link #checkpoint()} ja foram testadas, e a busca pode ser retomada a partir dele.
+ * A unidade em que a chave foi encontrada nao conta como testada, entao retomar a busca
+ * testa de novo as candidatas seguintes a chave encontrada (e a propria chave).
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesKeySearch {
+
+    /** Numero de candidatas de cada unidade de trabalho. */
+    public static final long TAMANHO_UNIDADE = 1L << 20;
+
+    /** Bits de paridade das chaves DES. */
+    private static final long PARIDADE = 0x0101010101010101L;
+
+    /**
+     * Recebe o andamento da busca periodicamente.
+     */
+    public interface Progresso {
+
+        /**
+         * @param testadas          Chaves testadas nesta execucao
+         * @param total             Total de candidatas no espaco de busca
+         * @param chavesPorSegundo  Taxa media desta execucao
+         * @param checkpoint        Indice a partir do qual a busca pode ser retomada
+         */
+        void relatar(long testadas, long total, double chavesPorSegundo, long checkpoint);
+    }
+
+    /**
+     * Resultado de uma busca.
+     */
+    public static final class Resultado {
+
+        private final boolean encontrada;
+        private final long chave;
+        private final long testadas;
+        private final long checkpoint;
+        private final double segundos;
+
+        Resultado(boolean encontrada, long chave, long testadas, long checkpoint, double segundos) {
+            this.encontrada = encontrada;
+            this.chave = chave;
+            this.testadas = testadas;
+            this.checkpoint = checkpoint;
+            this.segundos = segundos;
+        }
+
+        /** @return Se alguma chave cifra todos os pares */
+        public boolean encontrada() {
+            return encontrada;
+        }
+
+        /** @return A chave encontrada, com os bits de paridade da chave base */
+        public long chave() {
+            return chave;
+        }
+
+        /** @return Chaves testadas nesta execucao */
+        public long testadas() {
+            return testadas;
+        }
+
+        /** @return Indice a partir do qual a busca pode ser retomada */
+        public long checkpoint() {
+            return checkpoint;
+        }
+
+        /** @return Duracao da busca em segundos */
+        public double segundos() {
+            return segundos;
+        }
+
+        /** @return Taxa media de chaves testadas por segundo */
+        public double chavesPorSegundo() {
+            return segundos > 0 ? testadas / segundos : 0;
+        }
+    }
+
+    private final long[] textosSimples;
+    private final long[] textosCifrados;
+    private final long chaveFixa;
+    private final long mascara;
+
+    /** Posicao na chave de cada bit desconhecido, do menos para o mais significativo. */
+    private final int[] posicoes;
+    /** Contribuicao de cada bit desconhecido nas 16 chaves por rodada. */
+    private final long[][] deltas;
+
+    private final long ipSimples;
+    private final long alvo;
+    private final long total;
+
+    private final AtomicLong proximaUnidade = new AtomicLong();
+    private final LongAdder testadas = new LongAdder();
+    private final TreeSet<Long> concluidas = new TreeSet<>();
+    private long marca;
+    private volatile boolean parar;
+    private volatile long chaveEncontrada;
+    private volatile boolean encontrada;
+
+    /**
+     * @param textosSimples         Blocos de texto simples conhecidos
+     * @param textosCifrados        Blocos cifrados correspondentes
+     * @param chaveBase             Chave com os bits conhecidos (os desconhecidos sao ignorados)
+     * @param mascaraDesconhecida   Bits da chave que devem ser procurados
+     */
+    public DesKeySearch(long[] textosSimples, long[] textosCifrados, long chaveBase, long mascaraDesconhecida) {
+        if (textosSimples.length == 0 || textosSimples.length != textosCifrados.length) {
+            throw new IllegalArgumentException("Informe ao menos um par de texto simples e texto cifrado");
+        }
+        this.textosSimples = textosSimples.clone();
+        this.textosCifrados = textosCifrados.clone();
+        this.mascara = mascaraDesconhecida & ~PARIDADE;
+        this.chaveFixa = chaveBase & ~mascara;
+
+        int bits = Long.bitCount(mascara);
+        this.total = 1L << bits;
+        this.posicoes = new int[bits];
+        this.deltas = new long[bits][];
+        long m = mascara;
+        for (int i = 0; i < bits; i++) {
+            posicoes[i] = Long.numberOfTrailingZeros(m);
+            deltas[i] = DesEngine.gerarChavesPorRodada(1L << posicoes[i]);
+            m &= m - 1;
+        }
+
+        this.ipSimples = DesEngine.permutacaoInicial(this.textosSimples[0]);
+        this.alvo = DesEngine.permutacaoInicial(this.textosCifrados[0]);
+    }
+
+    /**
+     * @return Numero de chaves candidatas (2 elevado ao numero de bits desconhecidos)
+     */
+    public long totalChaves() {
+        return total;
+    }
+
+    /**
+     * @return Indice abaixo do qual todas as candidatas ja foram testadas
+     */
+    public synchronized long checkpoint() {
+        return Math.min(marca * TAMANHO_UNIDADE, total);
+    }
+
+    /**
+     * Interrompe a busca em andamento. As unidades em execucao sao concluidas.
+     */
+    public void cancelar() {
+        parar = true;
+    }
+
+    /**
+     * Procura a chave usando todos os processadores, sem relatorio de progresso.
+     */
+    public Resultado buscar() throws InterruptedException {
+        return buscar(Runtime.getRuntime().availableProcessors(), 0, null, 0);
+    }
+
+    /**
+     * Procura a chave, parando na primeira que cifra todos os pares.
+     *
+     * @param threads           Numero de threads
+     * @param inicio            Checkpoint de uma busca anterior, ou 0
+     * @param progresso         Recebe o andamento a cada {@code intervaloMillis}, pode ser nulo
+     * @param intervaloMillis   Intervalo entre relatorios de progresso
+     * @return                  O resultado, com o checkpoint para retomar a busca se nao encontrada
+     */
+    public Resultado buscar(int threads, long inicio, Progresso progresso, long intervaloMillis)
+            throws InterruptedException {
+        if (threads < 1 || inicio < 0 || inicio > total || (inicio % TAMANHO_UNIDADE != 0 && inicio != total)) {
+            throw new IllegalArgumentException("Threads ou checkpoint invalido");
+        }
+        long unidades = (total + TAMANHO_UNIDADE - 1) / TAMANHO_UNIDADE;
+        synchronized (this) {
+            marca = (inicio + TAMANHO_UNIDADE - 1) / TAMANHO_UNIDADE;
+            concluidas.clear();
+        }
+        proximaUnidade.set(marca);
+        testadas.reset();
+        parar = false;
+        encontrada = false;
+
+        long comeco = System.nanoTime();
+        Thread[] trabalhadores = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            trabalhadores[i] = new Thread(() -> trabalhar(unidades), "des-key-search-" + i);
+            trabalhadores[i].setDaemon(true);
+            trabalhadores[i].start();
+        }
+        try {
+            for (Thread t : trabalhadores) {
+                while (t.isAlive()) {
+                    t.join(progresso != null ? Math.max(1, intervaloMillis) : 0);
+                    if (progresso != null && t.isAlive()) {
+                        long n = testadas.sum();
+                        double s = (System.nanoTime() - comeco) / 1e9;
+                        progresso.relatar(n, total, s > 0 ? n / s : 0, checkpoint());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            parar = true;
+            throw e;
+        }
+        double segundos = (System.nanoTime() - comeco) / 1e9;
+        return new Resultado(encontrada, chaveEncontrada, testadas.sum(), checkpoint(), segundos);
+    }
+
+    private void trabalhar(long unidades) {
+        long[] kn = new long[16];
+        while (!parar) {
+            long unidade = proximaUnidade.getAndIncrement();
+            if (unidade >= unidades) {
+                break;
+            }
+            long de = unidade * TAMANHO_UNIDADE;
+            long ate = Math.min(de + TAMANHO_UNIDADE, total);
+            if (testar(de, ate, kn)) {
+                // a unidade nao foi percorrida ate o fim: o checkpoint para antes dela
+                parar = true;
+            } else {
+                concluir(unidade);
+            }
+        }
+    }
+
+    /**
+     * Testa as candidatas de indice {@code de} ate {@code ate - 1}, em codigo de Gray.
+     *
+     * @return Se alguma candidata cifra todos os pares (guardada em {@code chaveEncontrada})
+     */
+    private boolean testar(long de, long ate, long[] kn) {
+        long chave = chaveFixa | depositar(de ^ (de >>> 1));
+        System.arraycopy(DesEngine.gerarChavesPorRodada(chave), 0, kn, 0, 16);
+
+        long i = de;
+        while (true) {
+            if (DesEngine.executarRodadas(ipSimples, kn) == alvo && verificar(chave)) {
+                testadas.add(i - de + 1);
+                chaveEncontrada = chave;
+                encontrada = true;
+                return true;
+            }
+            if (++i == ate) {
+                break;
+            }
+            // gray(i) difere de gray(i - 1) no bit de indice ctz(i)
+            int bit = Long.numberOfTrailingZeros(i);
+            chave ^= 1L << posicoes[bit];
+            long[] d = deltas[bit];
+            for (int r = 0; r < 16; r++) {
+                kn[r] ^= d[r];
+            }
+        }
+        testadas.add(ate - de);
+        return false;
+    }
+
+    /**
+     * Confere a candidata com todos os pares conhecidos.
+     */
+    private boolean verificar(long chave) {
+        long[] kn = DesEngine.gerarChavesPorRodada(chave);
+        for (int i = 0; i < textosSimples.length; i++) {
+            if (DesEngine.encryptBlock(textosSimples[i], kn) != textosCifrados[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Espalha os bits de {@code indice} nas posicoes dos bits desconhecidos.
+     */
+    private long depositar(long indice) {
+        long chave = 0;
+        for (int i = 0; i < posicoes.length; i++) {
+            chave |= ((indice >>> i) & 1) << posicoes[i];
+        }
+        return chave;
+    }
+
+    /**
+     * Marca a unidade como concluida e avanca o checkpoint sobre as unidades contiguas.
+     */
+    private synchronized void concluir(long unidade) {
+        concluidas.add(unidade);
+        while (concluidas.remove(marca)) {
+            marca++;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package algoritimo;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias com faixas log-lineares, no estilo do HdrHistogram.
+ * <p>
+ * Valores de 0 a 15 tem uma faixa cada; acima disso cada potencia de 2 e dividida em
+ * 16 faixas iguais, entao o erro relativo de qualquer valor e no maximo 1/16 (6,25%),
+ * de 1 ns ate {@link Long#MAX_VALUE}, com memoria fixa. Registrar um valor e um
+ * incremento atomico, sem alocacao e sem bloqueio.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesLatencyHistogram {
+
+    /** Bits de precisao de cada potencia de 2 (16 faixas). */
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int FAIXAS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder soma = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Registra um valor (em nanossegundos, por convencao). Valores negativos contam como 0.
+     */
+    public void record(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        contagens.incrementAndGet(faixa(valor));
+        soma.add(valor);
+        total.increment();
+    }
+
+    /** @return Numero de valores registrados */
+    public long count() {
+        return total.sum();
+    }
+
+    /** @return Media dos valores registrados, ou 0 */
+    public double mean() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    /** @return Limite superior da faixa do maior valor registrado, ou 0 */
+    public long max() {
+        for (int i = FAIXAS - 1; i >= 0; i--) {
+            if (contagens.get(i) != 0) {
+                return limiteSuperior(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param percentil De 0 a 100
+     * @return          Limite superior da faixa que contem o percentil, ou 0 se vazio
+     */
+    public long percentile(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("Percentil fora de 0..100: " + percentil);
+        }
+        long n = 0;
+        long[] copia = new long[FAIXAS];
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            n += copia[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(percentil / 100 * n));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(FAIXAS - 1);
+    }
+
+    /**
+     * Zera o histograma. Registros concorrentes podem ficar parcialmente contados.
+     */
+    public void reset() {
+        for (int i = 0; i < FAIXAS; i++) {
+            contagens.set(i, 0);
+        }
+        soma.reset();
+        total.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d media=%.0f p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                             count(), mean(), percentile(50), percentile(90), percentile(99),
+                             percentile(99.9), max());
+    }
+
+    /**
+     * Faixa de um valor nao negativo: o expoente da potencia de 2 e os 4 bits seguintes.
+     */
+    static int faixa(long valor) {
+        if (valor < SUB) {
+            return (int) valor;
+        }
+        int e = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (e - SUB_BITS)) & (SUB - 1);
+        return (e - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /**
+     * Maior valor que cai na faixa {@code i}.
+     */
+    static long limiteSuperior(int i) {
+        if (i < SUB) {
+            return i;
+        }
+        int e = i / SUB + SUB_BITS - 1;
+        long inferior = (long) (SUB + i % SUB) << (e - SUB_BITS);
+        return inferior + (1L << (e - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,334 @@
+package algoritimo;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * MAC incremental com DES: CBC-MAC (ISO/IEC 9797-1 algoritmo 1) e retail MAC
+ * (ISO/IEC 9797-1 algoritmo 3, ANSI X9.19).
+ * <p>
+ * A mensagem e encadeada em CBC com a chave K1 e vetor zero; no retail MAC o ultimo
+ * valor da cadeia ainda passa por {@code E_K3(D_K2(h))} (com K3 = K1 quando so duas
+ * chaves sao informadas). O bloco parcial fica em um {@code long}, entao
+ * {@link #update} e {@link #doFinal()} nao alocam memoria; depois de {@link #doFinal()}
+ * o objeto volta ao inicio e pode ser reutilizado, inclusive com outras chaves
+ * ({@link #init(long, long, long)}). As chaves por rodada vem de um
+ * {@link DesKeyScheduleCache} compartilhado, consultado somente quando a chave muda.
+ * <p>
+ * Nao e thread-safe: use um objeto por thread, como em {@link #verifyAll}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesMac {
+
+    /** Cache de chaves compartilhado por todos os MACs. */
+    private static final DesKeyScheduleCache CHAVES = new DesKeyScheduleCache(1024);
+
+    /** Mensagens verificadas por tarefa em {@link #verifyAll}. */
+    static final int MENSAGENS_POR_TAREFA = 64;
+
+    private final boolean retail;
+    private final DesMacPadding padding;
+    private final int tamanho;
+
+    private DesKeySchedule k1;
+    private DesKeySchedule k2;
+    private DesKeySchedule k3;
+
+    private long estado;
+    private long parcial;
+    private int nParcial;
+    private boolean vazio = true;
+
+    private DesMac(boolean retail, DesMacPadding padding, int tamanho) {
+        if (padding == null || tamanho < 1 || tamanho > 8) {
+            throw new IllegalArgumentException("Padding nulo ou tamanho do MAC fora de 1..8 bytes");
+        }
+        this.retail = retail;
+        this.padding = padding;
+        this.tamanho = tamanho;
+    }
+
+    /**
+     * CBC-MAC com uma chave DES.
+     *
+     * @param tamanho Bytes do MAC (1 a 8); valores menores truncam o MAC
+     */
+    public static DesMac cbcMac(long chave, DesMacPadding padding, int tamanho) {
+        DesMac mac = new DesMac(false, padding, tamanho);
+        mac.init(chave);
+        return mac;
+    }
+
+    /**
+     * Retail MAC com chave de 16 bytes (K1, K2).
+     *
+     * @param tamanho Bytes do MAC (1 a 8); valores menores truncam o MAC
+     */
+    public static DesMac retailMac(long k1, long k2, DesMacPadding padding, int tamanho) {
+        return retailMac(k1, k2, k1, padding, tamanho);
+    }
+
+    /**
+     * Retail MAC com tres chaves (K1, K2, K3).
+     *
+     * @param tamanho Bytes do MAC (1 a 8); valores menores truncam o MAC
+     */
+    public static DesMac retailMac(long k1, long k2, long k3, DesMacPadding padding, int tamanho) {
+        DesMac mac = new DesMac(true, padding, tamanho);
+        mac.init(k1, k2, k3);
+        return mac;
+    }
+
+    /**
+     * Troca a chave do CBC-MAC e volta ao inicio da mensagem.
+     */
+    public void init(long chave) {
+        if (retail) {
+            throw new IllegalStateException("O retail MAC precisa de duas ou tres chaves");
+        }
+        k1 = escalonar(k1, chave);
+        reset();
+    }
+
+    /**
+     * Troca as chaves do retail MAC (K3 = K1) e volta ao inicio da mensagem.
+     */
+    public void init(long k1, long k2) {
+        init(k1, k2, k1);
+    }
+
+    /**
+     * Troca as chaves do retail MAC e volta ao inicio da mensagem.
+     */
+    public void init(long k1, long k2, long k3) {
+        if (!retail) {
+            throw new IllegalStateException("O CBC-MAC usa uma unica chave");
+        }
+        this.k1 = escalonar(this.k1, k1);
+        this.k2 = escalonar(this.k2, k2);
+        this.k3 = k3 == k1 ? this.k1 : escalonar(this.k3, k3);
+        reset();
+    }
+
+    /**
+     * Mantem as chaves por rodada atuais se a chave nao mudou, evitando a consulta (e a
+     * alocacao da chave do mapa) no cache a cada mensagem.
+     */
+    private static DesKeySchedule escalonar(DesKeySchedule atual, long chave) {
+        return atual != null && atual.chave() == chave ? atual : CHAVES.get(chave);
+    }
+
+    /**
+     * Descarta a mensagem em andamento, mantendo as chaves.
+     */
+    public void reset() {
+        estado = 0;
+        parcial = 0;
+        nParcial = 0;
+        vazio = true;
+    }
+
+    /** @return Tamanho do MAC em bytes */
+    public int getMacLength() {
+        return tamanho;
+    }
+
+    public void update(byte b) {
+        vazio = false;
+        parcial = (parcial << 8) | (b & 0xFF);
+        if (++nParcial == 8) {
+            estado = k1.encrypt(estado ^ parcial);
+            parcial = 0;
+            nParcial = 0;
+        }
+    }
+
+    public void update(byte[] in, int off, int len) {
+        DesModes.verificarFaixa(in.length, off, len);
+        if (len == 0) {
+            return;
+        }
+        vazio = false;
+        int fim = off + len;
+        while (nParcial != 0 && off < fim) {
+            update(in[off++]);
+        }
+        DesBlockCipher cifra = k1;
+        long h = estado;
+        for (; off + 8 <= fim; off += 8) {
+            h = cifra.encrypt(h ^ DesModes.lerLong(in, off));
+        }
+        estado = h;
+        while (off < fim) {
+            parcial = (parcial << 8) | (in[off++] & 0xFF);
+            nParcial++;
+        }
+    }
+
+    public void update(byte[] in) {
+        update(in, 0, in.length);
+    }
+
+    /**
+     * Processa os bytes restantes de {@code in}, avancando a sua posicao.
+     */
+    public void update(ByteBuffer in) {
+        int pos = in.position();
+        int fim = in.limit();
+        if (pos == fim) {
+            return;
+        }
+        vazio = false;
+        while (nParcial != 0 && pos < fim) {
+            update(in.get(pos++));
+        }
+        DesBlockCipher cifra = k1;
+        long h = estado;
+        for (; pos + 8 <= fim; pos += 8) {
+            h = cifra.encrypt(h ^ DesModes.getLong(in, pos));
+        }
+        estado = h;
+        while (pos < fim) {
+            parcial = (parcial << 8) | (in.get(pos++) & 0xFF);
+            nParcial++;
+        }
+        in.position(fim);
+    }
+
+    /**
+     * Termina a mensagem e volta ao inicio.
+     *
+     * @return O MAC completo de 64 bits (os primeiros {@link #getMacLength()} bytes, a
+     *         partir do mais significativo, sao o MAC truncado)
+     */
+    public long doFinal() {
+        long h = estado;
+        if (padding == DesMacPadding.ISO9797_M2) {
+            long bloco = ((parcial << 8) | 0x80) << (8 * (7 - nParcial));
+            h = k1.encrypt(h ^ bloco);
+        } else if (nParcial != 0 || vazio) {
+            h = k1.encrypt(h ^ (parcial << (8 * (8 - nParcial))));
+        }
+        if (retail) {
+            h = k3.encrypt(k2.decrypt(h));
+        }
+        reset();
+        return h;
+    }
+
+    /**
+     * Termina a mensagem gravando os {@link #getMacLength()} bytes do MAC em {@code out}.
+     *
+     * @return O numero de bytes gravados
+     */
+    public int doFinal(byte[] out, int off) {
+        DesModes.verificarSaida(out.length, off, tamanho);
+        long h = doFinal();
+        for (int i = 0; i < tamanho; i++) {
+            out[off + i] = (byte) (h >>> (56 - 8*i));
+        }
+        return tamanho;
+    }
+
+    /**
+     * Termina a mensagem e compara o MAC com {@code mac} em tempo constante.
+     *
+     * @return Se {@code mac} tem {@link #getMacLength()} bytes e confere
+     */
+    public boolean verify(byte[] mac, int off, int len) {
+        long h = doFinal();
+        if (len != tamanho) {
+            return false;
+        }
+        DesModes.verificarFaixa(mac.length, off, len);
+        int diferenca = 0;
+        for (int i = 0; i < tamanho; i++) {
+            diferenca |= (mac[off + i] ^ (int) (h >>> (56 - 8*i))) & 0xFF;
+        }
+        return diferenca == 0;
+    }
+
+    /**
+     * Verifica varias mensagens em paralelo no pool comum.
+     *
+     * @see #verifyAll(ForkJoinPool, DesMacPadding, int, long[], long[], byte[][], byte[][])
+     */
+    public static boolean[] verifyAll(DesMacPadding padding, int tamanho, long[] k1, long[] k2,
+                                      byte[][] mensagens, byte[][] macs) {
+        return verifyAll(ForkJoinPool.commonPool(), padding, tamanho, k1, k2, mensagens, macs);
+    }
+
+    /**
+     * Verifica varias mensagens em paralelo. Cada tarefa reutiliza um unico objeto
+     * {@link DesMac}, trocando as chaves a cada mensagem.
+     *
+     * @param k1        Chave (CBC-MAC) ou K1 (retail MAC) de cada mensagem
+     * @param k2        K2 de cada mensagem para o retail MAC, ou {@code null} para CBC-MAC
+     * @param mensagens Mensagens
+     * @param macs      MAC esperado de cada mensagem
+     * @return          Se cada MAC confere
+     */
+    public static boolean[] verifyAll(ForkJoinPool pool, DesMacPadding padding, int tamanho, long[] k1, long[] k2,
+                                      byte[][] mensagens, byte[][] macs) {
+        int n = mensagens.length;
+        if (k1.length != n || macs.length != n || (k2 != null && k2.length != n)) {
+            throw new IllegalArgumentException("Chaves, mensagens e MACs devem ter o mesmo tamanho");
+        }
+        boolean[] resultado = new boolean[n];
+        if (n > 0) {
+            pool.invoke(new Verificacao(padding, tamanho, k1, k2, mensagens, macs, resultado, 0, n));
+        }
+        return resultado;
+    }
+
+    /**
+     * Divide as mensagens [de, ate) entre as threads do pool.
+     */
+    private static final class Verificacao extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DesMacPadding padding;
+        private final int tamanho;
+        private final long[] k1, k2;
+        private final byte[][] mensagens, macs;
+        private final boolean[] resultado;
+        private final int de, ate;
+
+        Verificacao(DesMacPadding padding, int tamanho, long[] k1, long[] k2, byte[][] mensagens, byte[][] macs,
+                    boolean[] resultado, int de, int ate) {
+            this.padding = padding;
+            this.tamanho = tamanho;
+            this.k1 = k1;
+            this.k2 = k2;
+            this.mensagens = mensagens;
+            this.macs = macs;
+            this.resultado = resultado;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        @Override
+        protected void compute() {
+            if (ate - de > MENSAGENS_POR_TAREFA) {
+                int meio = (de + ate) >>> 1;
+                invokeAll(new Verificacao(padding, tamanho, k1, k2, mensagens, macs, resultado, de, meio),
+                          new Verificacao(padding, tamanho, k1, k2, mensagens, macs, resultado, meio, ate));
+                return;
+            }
+            DesMac mac = k2 == null ? cbcMac(k1[de], padding, tamanho) : retailMac(k1[de], k2[de], padding, tamanho);
+            for (int i = de; i < ate; i++) {
+                if (k2 == null) {
+                    mac.init(k1[i]);
+                } else {
+                    mac.init(k1[i], k2[i]);
+                }
+                mac.update(mensagens[i], 0, mensagens[i].length);
+                resultado[i] = mac.verify(macs[i], 0, macs[i].length);
+            }
+        }
+    }
+}
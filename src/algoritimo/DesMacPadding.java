@@ -0,0 +1,16 @@
+package algoritimo;
+
+/**
+ * Metodos de preenchimento da ISO/IEC 9797-1 usados pelos MACs de {@link DesMac}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public enum DesMacPadding {
+
+    /** Metodo 1: completa com zeros (uma mensagem vazia vira um bloco de zeros). */
+    ISO9797_M1,
+
+    /** Metodo 2: acrescenta 0x80 e completa com zeros, sempre. */
+    ISO9797_M2
+}
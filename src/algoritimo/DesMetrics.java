@@ -0,0 +1,252 @@
+package algoritimo;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metricas das operacoes de criptografia: contadores de blocos e bytes processados, de
+ * escalonamentos de chave e de acertos do cache, e um {@link DesLatencyHistogram} por
+ * operacao (criptografar ou descriptografar) e modo.
+ * <p>
+ * As operacoes em massa ({@link DesModes}, {@link DesParallel}, {@link DesBulk},
+ * {@link DesCipher} e os wrappers de stream) sao medidas quando as metricas estao
+ * ligadas ({@link #setEnabled} ou {@code -Dalgoritimo.des.metrics=true}) e, em JDK 11 ou
+ * superior, geram o evento de JFR {@code algoritimo.DesOperacao} quando ele esta
+ * habilitado em uma gravacao. Desligado, o custo e a leitura de um campo volatil por
+ * operacao. Os contadores sao {@link LongAdder}, sem disputa entre threads.
+ * <p>
+ * Para nao pesar na inicializacao, o JFR so e acompanhado (listener das gravacoes)
+ * depois que as metricas sao ligadas ou que o Flight Recorder ja foi iniciado, por
+ * exemplo com {@code -XX:StartFlightRecording}. Com as metricas desligadas, um Flight
+ * Recorder iniciado depois do primeiro uso da biblioteca (por {@code jcmd}) e percebido
+ * no proximo escalonamento de chave.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesMetrics {
+
+    /** Propriedade de sistema que liga as metricas na inicializacao. */
+    public static final String PROPRIEDADE = "algoritimo.des.metrics";
+
+    /**
+     * Eventos de JFR das operacoes, implementados em {@code DesJfr} (JDK 11 ou superior).
+     */
+    interface Sonda {
+
+        /** @return Se o Flight Recorder ja foi iniciado nesta JVM (sem inicia-lo) */
+        boolean iniciado();
+
+        /** Passa a chamar {@link DesMetrics#atualizarJfr()} quando uma gravacao muda de estado. */
+        void escutar();
+
+        /** @return Se o evento esta habilitado em alguma gravacao */
+        boolean ativa();
+
+        /** @return O evento iniciado */
+        Object iniciar();
+
+        void concluir(Object evento, boolean cifrar, DesMode modo, String engine, long bytes);
+    }
+
+    private static final LongAdder BLOCOS = new LongAdder();
+    private static final LongAdder BYTES = new LongAdder();
+    private static final LongAdder ESCALONAMENTOS = new LongAdder();
+    private static final LongAdder ACERTOS = new LongAdder();
+    private static final LongAdder FALHAS = new LongAdder();
+    private static final DesLatencyHistogram[][] LATENCIAS = new DesLatencyHistogram[2][DesMode.values().length];
+
+    private static final Sonda SONDA = carregarSonda();
+
+    private static volatile boolean metricas;
+    private static volatile boolean jfr;
+    /** Se a sonda ja avisa as mudancas de gravacao. */
+    private static volatile boolean escutando;
+    /** {@code metricas || jfr}: o unico campo lido quando tudo esta desligado. */
+    private static volatile boolean ligado;
+
+    static {
+        for (DesLatencyHistogram[] porModo : LATENCIAS) {
+            for (int i = 0; i < porModo.length; i++) {
+                porModo[i] = new DesLatencyHistogram();
+            }
+        }
+        metricas = Boolean.getBoolean(PROPRIEDADE);
+        atualizarJfr();
+    }
+
+    private DesMetrics() {
+    }
+
+    /**
+     * Liga ou desliga as metricas. Os valores acumulados sao mantidos.
+     */
+    public static void setEnabled(boolean habilitar) {
+        metricas = habilitar;
+        atualizarJfr();
+    }
+
+    /** @return Se as metricas estao ligadas */
+    public static boolean isEnabled() {
+        return metricas;
+    }
+
+    /** @return Se o JFR esta disponivel nesta JVM */
+    public static boolean isJfrAvailable() {
+        return SONDA != null;
+    }
+
+    /** @return Blocos de 8 bytes processados pelas operacoes em massa */
+    public static long blocksProcessed() {
+        return BLOCOS.sum();
+    }
+
+    /** @return Bytes processados pelas operacoes em massa */
+    public static long bytesProcessed() {
+        return BYTES.sum();
+    }
+
+    /**
+     * @return Escalonamentos de chave calculados, por qualquer caminho
+     *         ({@link DesKeySchedule#of(long)}, {@link DesEngine#gerarChavesPorRodada(long)},
+     *         {@link CryptoDES} ou {@link DesKeySearch})
+     */
+    public static long keySchedules() {
+        return ESCALONAMENTOS.sum();
+    }
+
+    /** @return Acertos de todos os {@link DesKeyScheduleCache} */
+    public static long cacheHits() {
+        return ACERTOS.sum();
+    }
+
+    /** @return Falhas de todos os {@link DesKeyScheduleCache} */
+    public static long cacheMisses() {
+        return FALHAS.sum();
+    }
+
+    /**
+     * @return O histograma de duracao, em nanossegundos, das operacoes em massa
+     */
+    public static DesLatencyHistogram latency(boolean cifrar, DesMode modo) {
+        return LATENCIAS[cifrar ? 0 : 1][modo.ordinal()];
+    }
+
+    /**
+     * Zera todos os contadores e histogramas.
+     */
+    public static void reset() {
+        BLOCOS.reset();
+        BYTES.reset();
+        ESCALONAMENTOS.reset();
+        ACERTOS.reset();
+        FALHAS.reset();
+        for (DesLatencyHistogram[] porModo : LATENCIAS) {
+            for (DesLatencyHistogram h : porModo) {
+                h.reset();
+            }
+        }
+    }
+
+    /**
+     * @return Resumo de todas as metricas, uma por linha
+     */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("blocos=").append(blocksProcessed()).append(" bytes=").append(bytesProcessed())
+          .append(" escalonamentos=").append(keySchedules())
+          .append(" cache=").append(cacheHits()).append('/').append(cacheMisses()).append('\n');
+        for (int c = 0; c < 2; c++) {
+            for (DesMode modo : DesMode.values()) {
+                DesLatencyHistogram h = LATENCIAS[c][modo.ordinal()];
+                if (h.count() > 0) {
+                    sb.append(c == 0 ? "encrypt " : "decrypt ").append(modo).append(": ").append(h).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** @return Se alguma medicao (metricas ou JFR) esta ligada */
+    static boolean ativo() {
+        return ligado;
+    }
+
+    /**
+     * Inicio de uma operacao em massa.
+     *
+     * @return O evento de JFR iniciado, ou {@code null}
+     */
+    static Object iniciar() {
+        return jfr ? SONDA.iniciar() : null;
+    }
+
+    /**
+     * Fim de uma operacao em massa iniciada em {@code inicio} ({@link System#nanoTime()}).
+     */
+    static void concluir(Object evento, long inicio, boolean cifrar, DesMode modo, DesBlockCipher cifra, long bytes) {
+        if (metricas) {
+            BLOCOS.add((bytes + 7) >>> 3);
+            BYTES.add(bytes);
+            latency(cifrar, modo).record(System.nanoTime() - inicio);
+        }
+        if (evento != null) {
+            SONDA.concluir(evento, cifrar, modo, engine(cifra), bytes);
+        }
+    }
+
+    static void escalonamento() {
+        if (metricas) {
+            ESCALONAMENTOS.increment();
+        } else if (!escutando && SONDA != null && SONDA.iniciado()) {
+            atualizarJfr();
+        }
+    }
+
+    static void cache(boolean acerto) {
+        if (metricas) {
+            (acerto ? ACERTOS : FALHAS).increment();
+        }
+    }
+
+    /**
+     * Chamado pela sonda quando uma gravacao de JFR comeca ou termina.
+     */
+    static void atualizarJfr() {
+        boolean ativa = false;
+        if (SONDA != null && (metricas || escutando || SONDA.iniciado())) {
+            if (!escutando) {
+                SONDA.escutar();
+                escutando = true;
+            }
+            ativa = SONDA.ativa();
+        }
+        jfr = ativa;
+        ligado = metricas || jfr;
+    }
+
+    static String engine(DesBlockCipher cifra) {
+        if (cifra instanceof DesBitsliced) {
+            return DesEngineType.BITSLICED.name();
+        }
+        if (cifra instanceof DesInterleaved) {
+            return DesEngineType.INTERLEAVED.name();
+        }
+        // compilado a parte (src-vector), nao e visivel daqui
+        if (cifra.getClass().getName().equals("algoritimo.DesVector")) {
+            return DesEngineType.VECTOR.name();
+        }
+        return DesEngineType.SCALAR.name();
+    }
+
+    /**
+     * Carrega {@code DesJfr}, compilado a parte para JDK 11. Em JDK 8 (ou sem o modulo
+     * jdk.jfr) a classe nao carrega e os eventos ficam desligados.
+     */
+    private static Sonda carregarSonda() {
+        try {
+            return (Sonda) Class.forName("algoritimo.DesJfr").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package algoritimo;
+/**
+ * Modos de operacao suportados por {@link DesModes}.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public enum DesMode {
+    /** Electronic codebook: cada bloco e cifrado de forma independente. */
+    ECB,
+    /** Cipher block chaining: cada bloco e combinado com o bloco cifrado anterior. */
+    CBC,
+    /** Counter: o texto e combinado com a cifra de um contador de 64 bits. */
+    CTR
+}
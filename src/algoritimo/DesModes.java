@@ -0,0 +1,556 @@
+package algoritimo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Modos de operacao ECB, CBC e CTR sobre {@code byte[]} e {@link ByteBuffer}.
+ * <p>
+ * Os dados sao processados em lacos sobre o buffer inteiro, bloco a bloco, gravando
+ * diretamente no buffer de saida informado pelo chamador. A entrada e a saida podem
+ * ser o mesmo array (ou buffer) com o mesmo deslocamento, para cifrar no lugar.
+ * <p>
+ * No CBC o vetor de inicializacao e o bloco anterior; no CTR ele e o valor inicial do
+ * contador de 64 bits, incrementado a cada bloco, e aceita mensagens de qualquer
+ * tamanho sem padding. O ECB ignora o vetor.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesModes {
+
+    /**
+     * Lote de blocos por thread, usado com cifras que processam varios blocos por vez
+     * (ver {@link DesBlockCipher#blocosPorLote()}).
+     */
+    private static final ThreadLocal<long[]> LOTE = ThreadLocal.withInitial(() -> new long[256]);
+
+    private DesModes() {
+    }
+
+    /**
+     * Calcula o tamanho do texto cifrado para uma mensagem de {@code len} bytes.
+     *
+     * @param padding Preenchimento usado
+     * @param len     Tamanho da mensagem em bytes
+     * @return        Tamanho do texto cifrado em bytes
+     */
+    public static int outputSize(DesPadding padding, int len) {
+        return padding == DesPadding.PKCS5 ? (len & ~7) + 8 : len;
+    }
+
+    /**
+     * Criptografa {@code len} bytes de {@code in} gravando o resultado em {@code out}.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public static int encrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                              byte[] in, int inOff, int len, byte[] out, int outOff) {
+        verificarPadding(modo, padding);
+        verificarFaixa(in.length, inOff, len);
+        int tamanho = outputSize(padding, len);
+        verificarSaida(out.length, outOff, tamanho);
+
+        if (padding == DesPadding.NONE) {
+            verificarAlinhamento(modo, len);
+            processar(modo, true, cifra, iv, in, inOff, len, out, outOff);
+            return len;
+        }
+
+        int completos = len & ~7;
+        long ultimo = blocoComPadding(in, inOff + completos, len - completos);
+        long estado = processar(modo, true, cifra, iv, in, inOff, completos, out, outOff);
+        escreverLong(out, outOff + completos, cifrarBloco(modo, cifra, estado, ultimo));
+        return tamanho;
+    }
+
+    /**
+     * Descriptografa {@code len} bytes de {@code in} gravando o resultado em {@code out}.
+     *
+     * @return O numero de bytes gravados em {@code out}, ja sem o preenchimento
+     * @throws IllegalArgumentException se o preenchimento PKCS#5 for invalido
+     */
+    public static int decrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                              byte[] in, int inOff, int len, byte[] out, int outOff) {
+        verificarPadding(modo, padding);
+        verificarFaixa(in.length, inOff, len);
+
+        if (padding == DesPadding.NONE) {
+            verificarAlinhamento(modo, len);
+            verificarSaida(out.length, outOff, len);
+            processar(modo, false, cifra, iv, in, inOff, len, out, outOff);
+            return len;
+        }
+
+        verificarTamanhoComPadding(len);
+        int semUltimo = len - 8;
+        verificarSaida(out.length, outOff, semUltimo);
+
+        long ultimoCifrado = lerLong(in, inOff + semUltimo);
+        long estado = processar(modo, false, cifra, iv, in, inOff, semUltimo, out, outOff);
+        long ultimo = decifrarBloco(modo, cifra, estado, ultimoCifrado);
+        int resto = 8 - tamanhoPadding(ultimo);
+        verificarSaida(out.length, outOff + semUltimo, resto);
+        for (int i = 0; i < resto; i++) {
+            out[outOff + semUltimo + i] = (byte) (ultimo >>> (56 - 8*i));
+        }
+        return semUltimo + resto;
+    }
+
+    /**
+     * Criptografa os bytes restantes de {@code in} gravando o resultado a partir da
+     * posicao de {@code out}. As posicoes de ambos os buffers sao avancadas.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public static int encrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                              ByteBuffer in, ByteBuffer out) {
+        verificarPadding(modo, padding);
+        int len = in.remaining();
+        int tamanho = outputSize(padding, len);
+        verificarSaida(out.remaining(), 0, tamanho);
+        if (padding == DesPadding.NONE) {
+            verificarAlinhamento(modo, len);
+        }
+
+        int inPos = in.position();
+        int outPos = out.position();
+        if (in.hasArray() && out.hasArray()) {
+            encrypt(modo, padding, cifra, iv, in.array(), in.arrayOffset() + inPos, len,
+                    out.array(), out.arrayOffset() + outPos);
+        } else if (padding == DesPadding.NONE) {
+            processar(modo, true, cifra, iv, in, inPos, len, out, outPos);
+        } else {
+            int completos = len & ~7;
+            long ultimo = 0;
+            for (int i = completos; i < len; i++) {
+                ultimo = (ultimo << 8) | (in.get(inPos + i) & 0xFF);
+            }
+            ultimo = adicionarPadding(ultimo, len - completos);
+            long estado = processar(modo, true, cifra, iv, in, inPos, completos, out, outPos);
+            putLong(out, outPos + completos, cifrarBloco(modo, cifra, estado, ultimo));
+        }
+        in.position(inPos + len);
+        out.position(outPos + tamanho);
+        return tamanho;
+    }
+
+    /**
+     * Descriptografa os bytes restantes de {@code in} gravando o resultado a partir da
+     * posicao de {@code out}. As posicoes de ambos os buffers sao avancadas.
+     *
+     * @return O numero de bytes gravados em {@code out}, ja sem o preenchimento
+     * @throws IllegalArgumentException se o preenchimento PKCS#5 for invalido
+     */
+    public static int decrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                              ByteBuffer in, ByteBuffer out) {
+        verificarPadding(modo, padding);
+        int len = in.remaining();
+        int inPos = in.position();
+        int outPos = out.position();
+        int tamanho;
+
+        if (in.hasArray() && out.hasArray()) {
+            tamanho = decrypt(modo, padding, cifra, iv, in.array(), in.arrayOffset() + inPos, len,
+                              out.array(), out.arrayOffset() + outPos);
+        } else if (padding == DesPadding.NONE) {
+            verificarAlinhamento(modo, len);
+            verificarSaida(out.remaining(), 0, len);
+            processar(modo, false, cifra, iv, in, inPos, len, out, outPos);
+            tamanho = len;
+        } else {
+            verificarTamanhoComPadding(len);
+            int semUltimo = len - 8;
+            verificarSaida(out.remaining(), 0, semUltimo);
+
+            long ultimoCifrado = getLong(in, inPos + semUltimo);
+            long estado = processar(modo, false, cifra, iv, in, inPos, semUltimo, out, outPos);
+            long ultimo = decifrarBloco(modo, cifra, estado, ultimoCifrado);
+            int resto = 8 - tamanhoPadding(ultimo);
+            verificarSaida(out.remaining(), semUltimo, resto);
+            for (int i = 0; i < resto; i++) {
+                out.put(outPos + semUltimo + i, (byte) (ultimo >>> (56 - 8*i)));
+            }
+            tamanho = semUltimo + resto;
+        }
+        in.position(inPos + len);
+        out.position(outPos + tamanho);
+        return tamanho;
+    }
+
+    /**
+     * Criptografa blocos em modo ECB. {@code len} deve ser multiplo de 8.
+     */
+    public static void encryptEcb(DesBlockCipher cifra, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (cifra.blocosPorLote() > 1) {
+            emLotes(DesMode.ECB, true, cifra, 0, in, inOff, len, out, outOff);
+            return;
+        }
+        for (int i = 0; i < len; i += 8) {
+            escreverLong(out, outOff + i, cifra.encrypt(lerLong(in, inOff + i)));
+        }
+    }
+
+    /**
+     * Descriptografa blocos em modo ECB. {@code len} deve ser multiplo de 8.
+     */
+    public static void decryptEcb(DesBlockCipher cifra, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (cifra.blocosPorLote() > 1) {
+            emLotes(DesMode.ECB, false, cifra, 0, in, inOff, len, out, outOff);
+            return;
+        }
+        for (int i = 0; i < len; i += 8) {
+            escreverLong(out, outOff + i, cifra.decrypt(lerLong(in, inOff + i)));
+        }
+    }
+
+    /**
+     * Criptografa blocos em modo CBC. {@code len} deve ser multiplo de 8.
+     *
+     * @return O ultimo bloco cifrado, que e o vetor para continuar a cadeia
+     */
+    public static long encryptCbc(DesBlockCipher cifra, long iv, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        long anterior = iv;
+        for (int i = 0; i < len; i += 8) {
+            anterior = cifra.encrypt(lerLong(in, inOff + i) ^ anterior);
+            escreverLong(out, outOff + i, anterior);
+        }
+        return anterior;
+    }
+
+    /**
+     * Descriptografa blocos em modo CBC. {@code len} deve ser multiplo de 8.
+     *
+     * @return O ultimo bloco cifrado lido, que e o vetor para continuar a cadeia
+     */
+    public static long decryptCbc(DesBlockCipher cifra, long iv, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        long anterior = iv;
+        for (int i = 0; i < len; i += 8) {
+            long cifrado = lerLong(in, inOff + i);
+            escreverLong(out, outOff + i, cifra.decrypt(cifrado) ^ anterior);
+            anterior = cifrado;
+        }
+        return anterior;
+    }
+
+    /**
+     * Criptografa (ou descriptografa, a operacao e a mesma) em modo CTR. O ultimo bloco
+     * pode ser parcial.
+     *
+     * @return O proximo valor do contador
+     */
+    public static long ctr(DesBlockCipher cifra, long contador, byte[] in, int inOff, int len, byte[] out, int outOff) {
+        int completos = len & ~7;
+        if (cifra.blocosPorLote() > 1) {
+            contador = emLotes(DesMode.CTR, true, cifra, contador, in, inOff, completos, out, outOff);
+        } else {
+            for (int i = 0; i < completos; i += 8) {
+                escreverLong(out, outOff + i, lerLong(in, inOff + i) ^ cifra.encrypt(contador++));
+            }
+        }
+        if (completos < len) {
+            long fluxo = cifra.encrypt(contador++);
+            for (int i = completos; i < len; i++) {
+                out[outOff + i] = (byte) (in[inOff + i] ^ (fluxo >>> (56 - 8*(i - completos))));
+            }
+        }
+        return contador;
+    }
+
+    /**
+     * Processa {@code len} bytes no modo informado.
+     *
+     * @return O estado da cadeia (vetor do CBC ou contador do CTR) apos os blocos processados
+     */
+    static long processar(DesMode modo, boolean cifrar, DesBlockCipher cifra, long estado,
+                          byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (!DesMetrics.ativo()) {
+            return executar(modo, cifrar, cifra, estado, in, inOff, len, out, outOff);
+        }
+        Object evento = DesMetrics.iniciar();
+        long inicio = System.nanoTime();
+        estado = executar(modo, cifrar, cifra, estado, in, inOff, len, out, outOff);
+        DesMetrics.concluir(evento, inicio, cifrar, modo, cifra, len);
+        return estado;
+    }
+
+    private static long executar(DesMode modo, boolean cifrar, DesBlockCipher cifra, long estado,
+                                 byte[] in, int inOff, int len, byte[] out, int outOff) {
+        switch (modo) {
+            case ECB:
+                if (cifrar) {
+                    encryptEcb(cifra, in, inOff, len, out, outOff);
+                } else {
+                    decryptEcb(cifra, in, inOff, len, out, outOff);
+                }
+                return estado;
+            case CBC:
+                return cifrar ? encryptCbc(cifra, estado, in, inOff, len, out, outOff)
+                              : decryptCbc(cifra, estado, in, inOff, len, out, outOff);
+            default:
+                return ctr(cifra, estado, in, inOff, len, out, outOff);
+        }
+    }
+
+    /**
+     * Processa {@code len} bytes de buffers sem array acessivel (por exemplo, diretos),
+     * usando posicoes absolutas.
+     *
+     * @return O estado da cadeia (vetor do CBC ou contador do CTR) apos os blocos processados
+     */
+    static long processar(DesMode modo, boolean cifrar, DesBlockCipher cifra, long estado,
+                          ByteBuffer in, int inPos, int len, ByteBuffer out, int outPos) {
+        return processar(modo, cifrar, cifra, estado, in, inPos, len, out, outPos, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Processa {@code len} bytes de buffers usando posicoes absolutas, lendo e gravando
+     * cada bloco de 64 bits na ordem de bytes informada.
+     *
+     * @return O estado da cadeia (vetor do CBC ou contador do CTR) apos os blocos processados
+     */
+    static long processar(DesMode modo, boolean cifrar, DesBlockCipher cifra, long estado,
+                          ByteBuffer in, int inPos, int len, ByteBuffer out, int outPos, ByteOrder ordem) {
+        if (!DesMetrics.ativo()) {
+            return executar(modo, cifrar, cifra, estado, in, inPos, len, out, outPos, ordem);
+        }
+        Object evento = DesMetrics.iniciar();
+        long inicio = System.nanoTime();
+        estado = executar(modo, cifrar, cifra, estado, in, inPos, len, out, outPos, ordem);
+        DesMetrics.concluir(evento, inicio, cifrar, modo, cifra, len);
+        return estado;
+    }
+
+    private static long executar(DesMode modo, boolean cifrar, DesBlockCipher cifra, long estado,
+                                 ByteBuffer in, int inPos, int len, ByteBuffer out, int outPos, ByteOrder ordem) {
+        int completos = len & ~7;
+        int i = 0;
+        if (modo != DesMode.CBC && cifra.blocosPorLote() > 1) {
+            estado = emLotes(modo, cifrar, cifra, estado, in, inPos, completos, out, outPos, ordem);
+            i = completos;
+        }
+        for (; i < completos; i += 8) {
+            long bloco = getLong(in, inPos + i, ordem);
+            long resultado;
+            if (cifrar) {
+                resultado = cifrarBloco(modo, cifra, estado, bloco);
+                estado = modo == DesMode.CBC ? resultado : modo == DesMode.CTR ? estado + 1 : estado;
+            } else {
+                resultado = decifrarBloco(modo, cifra, estado, bloco);
+                estado = modo == DesMode.CBC ? bloco : modo == DesMode.CTR ? estado + 1 : estado;
+            }
+            putLong(out, outPos + i, resultado, ordem);
+        }
+        if (completos < len) {
+            // somente o CTR aceita um ultimo bloco parcial
+            long fluxo = cifra.encrypt(estado++);
+            boolean bigEndian = ordem == ByteOrder.BIG_ENDIAN;
+            for (i = completos; i < len; i++) {
+                int k = i - completos;
+                out.put(outPos + i, (byte) (in.get(inPos + i) ^ (fluxo >>> (bigEndian ? 56 - 8*k : 8*k))));
+            }
+        }
+        return estado;
+    }
+
+    /**
+     * Processa {@code len} bytes (multiplo de 8) em ECB ou CTR agrupando os blocos em lotes,
+     * para cifras que processam varios blocos por vez.
+     *
+     * @return O proximo valor do contador no CTR
+     */
+    private static long emLotes(DesMode modo, boolean cifrar, DesBlockCipher cifra, long contador,
+                                byte[] in, int inOff, int len, byte[] out, int outOff) {
+        long[] lote = LOTE.get();
+        boolean ctr = modo == DesMode.CTR;
+        for (int i = 0; i < len; ) {
+            int n = Math.min(lote.length, (len - i) >>> 3);
+            for (int j = 0; j < n; j++) {
+                lote[j] = ctr ? contador + j : lerLong(in, inOff + i + 8*j);
+            }
+            if (cifrar || ctr) {
+                cifra.encryptBlocks(lote, 0, n);
+            } else {
+                cifra.decryptBlocks(lote, 0, n);
+            }
+            for (int j = 0; j < n; j++) {
+                int k = i + 8*j;
+                escreverLong(out, outOff + k, ctr ? lerLong(in, inOff + k) ^ lote[j] : lote[j]);
+            }
+            contador += ctr ? n : 0;
+            i += 8*n;
+        }
+        return contador;
+    }
+
+    /**
+     * Versao de {@link #emLotes(DesMode, boolean, DesBlockCipher, long, byte[], int, int, byte[], int)}
+     * para buffers, usando posicoes absolutas.
+     */
+    private static long emLotes(DesMode modo, boolean cifrar, DesBlockCipher cifra, long contador,
+                                ByteBuffer in, int inPos, int len, ByteBuffer out, int outPos, ByteOrder ordem) {
+        long[] lote = LOTE.get();
+        boolean ctr = modo == DesMode.CTR;
+        for (int i = 0; i < len; ) {
+            int n = Math.min(lote.length, (len - i) >>> 3);
+            for (int j = 0; j < n; j++) {
+                lote[j] = ctr ? contador + j : getLong(in, inPos + i + 8*j, ordem);
+            }
+            if (cifrar || ctr) {
+                cifra.encryptBlocks(lote, 0, n);
+            } else {
+                cifra.decryptBlocks(lote, 0, n);
+            }
+            for (int j = 0; j < n; j++) {
+                int k = i + 8*j;
+                putLong(out, outPos + k, ctr ? getLong(in, inPos + k, ordem) ^ lote[j] : lote[j], ordem);
+            }
+            contador += ctr ? n : 0;
+            i += 8*n;
+        }
+        return contador;
+    }
+
+    /**
+     * Criptografa um unico bloco no modo informado, dado o estado atual da cadeia.
+     */
+    static long cifrarBloco(DesMode modo, DesBlockCipher cifra, long estado, long bloco) {
+        switch (modo) {
+            case ECB: return cifra.encrypt(bloco);
+            case CBC: return cifra.encrypt(bloco ^ estado);
+            default:  return bloco ^ cifra.encrypt(estado);
+        }
+    }
+
+    /**
+     * Descriptografa um unico bloco no modo informado, dado o estado atual da cadeia.
+     */
+    static long decifrarBloco(DesMode modo, DesBlockCipher cifra, long estado, long bloco) {
+        switch (modo) {
+            case ECB: return cifra.decrypt(bloco);
+            case CBC: return cifra.decrypt(bloco) ^ estado;
+            default:  return bloco ^ cifra.encrypt(estado);
+        }
+    }
+
+    /**
+     * Monta o ultimo bloco com os {@code resto} bytes finais da mensagem e o padding PKCS#5.
+     */
+    static long blocoComPadding(byte[] in, int off, int resto) {
+        long bloco = 0;
+        for (int i = 0; i < resto; i++) {
+            bloco = (bloco << 8) | (in[off + i] & 0xFF);
+        }
+        return adicionarPadding(bloco, resto);
+    }
+
+    /**
+     * Completa um bloco que contem {@code resto} bytes (nos bits menos significativos)
+     * com o padding PKCS#5.
+     */
+    static long adicionarPadding(long bloco, int resto) {
+        long n = 8 - resto;
+        for (int i = resto; i < 8; i++) {
+            bloco = (bloco << 8) | n;
+        }
+        return bloco;
+    }
+
+    /**
+     * Valida o padding PKCS#5 do ultimo bloco sem desvios dependentes dos dados.
+     *
+     * @return O numero de bytes de padding, 1 <= n <= 8
+     * @throws IllegalArgumentException se o padding for invalido
+     */
+    static int tamanhoPadding(long ultimo) {
+        int n = (int) ultimo & 0xFF;
+        int erro = (n - 1) & ~7;  // diferente de zero se n == 0 ou n > 8
+        for (int i = 0; i < 8; i++) {
+            int b = (int) (ultimo >>> (8*i)) & 0xFF;
+            erro |= (b ^ n) & ((i - n) >> 31);  // apenas os n bytes finais
+        }
+        if (erro != 0) {
+            throw new IllegalArgumentException("Padding PKCS#5 invalido");
+        }
+        return n;
+    }
+
+    /**
+     * Le 8 bytes em ordem big-endian como um bloco de 64 bits.
+     */
+    static long lerLong(byte[] b, int off) {
+        return ((long) (b[off]     & 0xFF) << 56) | ((long) (b[off + 1] & 0xFF) << 48)
+             | ((long) (b[off + 2] & 0xFF) << 40) | ((long) (b[off + 3] & 0xFF) << 32)
+             | ((long) (b[off + 4] & 0xFF) << 24) | ((long) (b[off + 5] & 0xFF) << 16)
+             | ((long) (b[off + 6] & 0xFF) << 8)  |  (long) (b[off + 7] & 0xFF);
+    }
+
+    /**
+     * Grava um bloco de 64 bits como 8 bytes em ordem big-endian.
+     */
+    static void escreverLong(byte[] b, int off, long v) {
+        b[off]     = (byte) (v >>> 56); b[off + 1] = (byte) (v >>> 48);
+        b[off + 2] = (byte) (v >>> 40); b[off + 3] = (byte) (v >>> 32);
+        b[off + 4] = (byte) (v >>> 24); b[off + 5] = (byte) (v >>> 16);
+        b[off + 6] = (byte) (v >>> 8);  b[off + 7] = (byte) v;
+    }
+
+    /**
+     * Le um bloco big-endian de um buffer, independente da ordem configurada no buffer.
+     */
+    static long getLong(ByteBuffer buffer, int pos) {
+        return getLong(buffer, pos, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Le um bloco na ordem de bytes informada, independente da ordem configurada no buffer.
+     */
+    static long getLong(ByteBuffer buffer, int pos, ByteOrder ordem) {
+        long v = buffer.getLong(pos);
+        return buffer.order() == ordem ? v : Long.reverseBytes(v);
+    }
+
+    /**
+     * Grava um bloco big-endian em um buffer, independente da ordem configurada no buffer.
+     */
+    static void putLong(ByteBuffer buffer, int pos, long v) {
+        putLong(buffer, pos, v, ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Grava um bloco na ordem de bytes informada, independente da ordem configurada no buffer.
+     */
+    static void putLong(ByteBuffer buffer, int pos, long v, ByteOrder ordem) {
+        buffer.putLong(pos, buffer.order() == ordem ? v : Long.reverseBytes(v));
+    }
+
+    static void verificarFaixa(int tamanho, int off, int len) {
+        if (off < 0 || len < 0 || off > tamanho - len) {
+            throw new IndexOutOfBoundsException("Faixa invalida: off=" + off + ", len=" + len);
+        }
+    }
+
+    static void verificarSaida(int tamanho, int off, int len) {
+        if (off < 0 || off > tamanho - len) {
+            throw new IllegalArgumentException("Buffer de saida pequeno demais: " + len + " bytes necessarios");
+        }
+    }
+
+    static void verificarPadding(DesMode modo, DesPadding padding) {
+        if (modo == DesMode.CTR && padding != DesPadding.NONE) {
+            throw new IllegalArgumentException("O modo CTR deve ser usado sem padding");
+        }
+    }
+
+    static void verificarAlinhamento(DesMode modo, int len) {
+        if (modo != DesMode.CTR && (len & 7) != 0) {
+            throw new IllegalArgumentException("O tamanho nao e multiplo de 8 e nao ha padding: " + len);
+        }
+    }
+
+    static void verificarTamanhoComPadding(int len) {
+        if (len == 0 || (len & 7) != 0) {
+            throw new IllegalArgumentException("O tamanho com padding deve ser multiplo de 8: " + len);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package algoritimo;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link OutputStream} que criptografa (ou descriptografa) tudo o que e escrito antes de
+ * repassar ao stream de destino.
+ * <p>
+ * Os bytes que nao completam um bloco ficam guardados na {@link DesCipher} ate a
+ * proxima escrita; o padding e aplicado (ou verificado) em {@link #close()}. A memoria
+ * usada e constante: um buffer de saida reutilizado, qualquer que seja o tamanho dos
+ * dados.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public class DesOutputStream extends FilterOutputStream {
+
+    /** Tamanho padrao do buffer interno. */
+    public static final int TAMANHO_BUFFER = 8192;
+
+    private final DesCipher cifra;
+    private final byte[] saida;
+    private final byte[] umByte = new byte[1];
+    private boolean fechado;
+
+    /**
+     * @param out   Stream de destino
+     * @param cifra Cifra incremental ja configurada
+     */
+    public DesOutputStream(OutputStream out, DesCipher cifra) {
+        this(out, cifra, TAMANHO_BUFFER);
+    }
+
+    /**
+     * @param out           Stream de destino
+     * @param cifra         Cifra incremental ja configurada
+     * @param tamanhoBuffer Quantos bytes sao processados por vez
+     */
+    public DesOutputStream(OutputStream out, DesCipher cifra, int tamanhoBuffer) {
+        super(out);
+        if (cifra == null || tamanhoBuffer < 8) {
+            throw new IllegalArgumentException("Cifra nula ou buffer menor que um bloco");
+        }
+        this.cifra = cifra;
+        this.saida = new byte[tamanhoBuffer + 8];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        umByte[0] = (byte) b;
+        write(umByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (fechado) {
+            throw new IOException("Stream fechado");
+        }
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        int tamanho = saida.length - 8;
+        while (len > 0) {
+            int n = Math.min(len, tamanho);
+            int gravados = cifra.update(b, off, n, saida, 0);
+            if (gravados > 0) {
+                out.write(saida, 0, gravados);
+            }
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Repassa ao destino os blocos ja processados. Um bloco incompleto continua guardado
+     * ate a proxima escrita ou o fechamento.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Termina a mensagem (padding) e fecha o stream de destino.
+     *
+     * @throws IOException se a mensagem nao tiver tamanho valido ou o padding for invalido
+     */
+    @Override
+    public void close() throws IOException {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        try {
+            int gravados;
+            try {
+                gravados = cifra.doFinal(saida, 0);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            out.write(saida, 0, gravados);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package algoritimo;
+/**
+ * Preenchimento aplicado ao ultimo bloco da mensagem.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public enum DesPadding {
+    /** Sem preenchimento: a mensagem deve ter tamanho multiplo de 8 (exceto no CTR). */
+    NONE,
+    /** PKCS#5: completa o ultimo bloco com n bytes de valor n, 1 <= n <= 8. */
+    PKCS5
+}
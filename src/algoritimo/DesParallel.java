@@ -0,0 +1,286 @@
+package algoritimo;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Processamento paralelo de buffers grandes em um {@link ForkJoinPool}.
+ * <p>
+ * ECB, CTR e a descriptografia CBC nao dependem do bloco anterior ja processado, entao
+ * o buffer e dividido em pedacos de tamanho fixo que sao processados em paralelo. O
+ * resultado e identico ao de {@link DesModes}. A criptografia CBC e inerentemente
+ * sequencial e e sempre delegada a {@link DesModes}, assim como buffers menores que o
+ * limiar configurado.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesParallel {
+
+    /** Tamanho padrao abaixo do qual o processamento fica em uma unica thread. */
+    public static final int LIMIAR_PADRAO = 512 * 1024;
+
+    /** Tamanho de cada pedaco processado por uma tarefa, para caber no cache L2. */
+    static final int TAMANHO_PEDACO = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int limiar;
+
+    /**
+     * Usa o pool comum e o limiar padrao.
+     */
+    public DesParallel() {
+        this(ForkJoinPool.commonPool(), LIMIAR_PADRAO);
+    }
+
+    /**
+     * @param pool      Pool onde as tarefas sao executadas
+     * @param limiar    Tamanho em bytes abaixo do qual nao ha paralelismo
+     */
+    public DesParallel(ForkJoinPool pool, int limiar) {
+        if (pool == null || limiar < 0) {
+            throw new IllegalArgumentException("Pool nulo ou limiar negativo");
+        }
+        this.pool = pool;
+        this.limiar = limiar;
+    }
+
+    /**
+     * Criptografa {@code len} bytes de {@code in} gravando o resultado em {@code out}.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     * @see DesModes#encrypt(DesMode, DesPadding, DesBlockCipher, long, byte[], int, int, byte[], int)
+     */
+    public int encrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                       byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (modo == DesMode.CBC || !paralelo(len)) {
+            return DesModes.encrypt(modo, padding, cifra, iv, in, inOff, len, out, outOff);
+        }
+        DesModes.verificarPadding(modo, padding);
+        DesModes.verificarFaixa(in.length, inOff, len);
+        DesModes.verificarSaida(out.length, outOff, DesModes.outputSize(padding, len));
+        if (padding == DesPadding.NONE) {
+            DesModes.verificarAlinhamento(modo, len);
+        }
+
+        int corpo = padding == DesPadding.PKCS5 ? len & ~7 : len;
+        long estado = executar(new Trabalho(modo, true, cifra, iv, in, inOff, null, out, outOff, null, corpo));
+        if (padding == DesPadding.NONE) {
+            return len;
+        }
+        return corpo + DesModes.encrypt(modo, padding, cifra, estado, in, inOff + corpo, len - corpo,
+                                        out, outOff + corpo);
+    }
+
+    /**
+     * Descriptografa {@code len} bytes de {@code in} gravando o resultado em {@code out}.
+     *
+     * @return O numero de bytes gravados em {@code out}, ja sem o preenchimento
+     * @see DesModes#decrypt(DesMode, DesPadding, DesBlockCipher, long, byte[], int, int, byte[], int)
+     */
+    public int decrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                       byte[] in, int inOff, int len, byte[] out, int outOff) {
+        if (!paralelo(len)) {
+            return DesModes.decrypt(modo, padding, cifra, iv, in, inOff, len, out, outOff);
+        }
+        DesModes.verificarPadding(modo, padding);
+        DesModes.verificarFaixa(in.length, inOff, len);
+        if (padding == DesPadding.NONE) {
+            DesModes.verificarAlinhamento(modo, len);
+        } else {
+            DesModes.verificarTamanhoComPadding(len);
+        }
+
+        int corpo = padding == DesPadding.PKCS5 ? len - 8 : len;
+        DesModes.verificarSaida(out.length, outOff, corpo);
+        long estado = executar(new Trabalho(modo, false, cifra, iv, in, inOff, null, out, outOff, null, corpo));
+        if (padding == DesPadding.NONE) {
+            return len;
+        }
+        return corpo + DesModes.decrypt(modo, padding, cifra, estado, in, inOff + corpo, 8, out, outOff + corpo);
+    }
+
+    /**
+     * Criptografa os bytes restantes de {@code in} gravando o resultado a partir da
+     * posicao de {@code out}. As posicoes de ambos os buffers sao avancadas.
+     *
+     * @return O numero de bytes gravados em {@code out}
+     */
+    public int encrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                       ByteBuffer in, ByteBuffer out) {
+        int len = in.remaining();
+        if (modo == DesMode.CBC || !paralelo(len)) {
+            return DesModes.encrypt(modo, padding, cifra, iv, in, out);
+        }
+        DesModes.verificarPadding(modo, padding);
+        DesModes.verificarSaida(out.remaining(), 0, DesModes.outputSize(padding, len));
+        if (padding == DesPadding.NONE) {
+            DesModes.verificarAlinhamento(modo, len);
+        }
+
+        int corpo = padding == DesPadding.PKCS5 ? len & ~7 : len;
+        long estado = executar(new Trabalho(modo, true, cifra, iv, null, in.position(), in,
+                                            null, out.position(), out, corpo));
+        in.position(in.position() + corpo);
+        out.position(out.position() + corpo);
+        if (padding == DesPadding.NONE) {
+            return len;
+        }
+        return corpo + DesModes.encrypt(modo, padding, cifra, estado, in, out);
+    }
+
+    /**
+     * Descriptografa os bytes restantes de {@code in} gravando o resultado a partir da
+     * posicao de {@code out}. As posicoes de ambos os buffers sao avancadas.
+     *
+     * @return O numero de bytes gravados em {@code out}, ja sem o preenchimento
+     */
+    public int decrypt(DesMode modo, DesPadding padding, DesBlockCipher cifra, long iv,
+                       ByteBuffer in, ByteBuffer out) {
+        int len = in.remaining();
+        if (!paralelo(len)) {
+            return DesModes.decrypt(modo, padding, cifra, iv, in, out);
+        }
+        DesModes.verificarPadding(modo, padding);
+        if (padding == DesPadding.NONE) {
+            DesModes.verificarAlinhamento(modo, len);
+        } else {
+            DesModes.verificarTamanhoComPadding(len);
+        }
+
+        int corpo = padding == DesPadding.PKCS5 ? len - 8 : len;
+        DesModes.verificarSaida(out.remaining(), 0, corpo);
+        long estado = executar(new Trabalho(modo, false, cifra, iv, null, in.position(), in,
+                                            null, out.position(), out, corpo));
+        in.position(in.position() + corpo);
+        out.position(out.position() + corpo);
+        if (padding == DesPadding.NONE) {
+            return len;
+        }
+        return corpo + DesModes.decrypt(modo, padding, cifra, estado, in, out);
+    }
+
+    private boolean paralelo(int len) {
+        return len >= limiar && len > TAMANHO_PEDACO && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Divide o trabalho em pedacos e espera todos terminarem.
+     *
+     * @return O estado da cadeia apos o ultimo bloco, como em {@link DesModes#processar}
+     */
+    private long executar(Trabalho trabalho) {
+        int pedacos = (trabalho.len + TAMANHO_PEDACO - 1) / TAMANHO_PEDACO;
+        long estadoFinal = trabalho.prepararVetores(pedacos);
+        if (pedacos > 0) {
+            pool.invoke(new Tarefa(trabalho, 0, pedacos));
+        }
+        return estadoFinal;
+    }
+
+    /**
+     * Parametros compartilhados por todas as tarefas de uma chamada. A entrada e a saida
+     * sao arrays ou buffers, conforme qual dos dois nao for nulo.
+     */
+    private static final class Trabalho {
+
+        final DesMode modo;
+        final boolean cifrar;
+        final DesBlockCipher cifra;
+        final long estado;
+        final byte[] inArr, outArr;
+        final ByteBuffer inBuf, outBuf;
+        final int inOff, outOff, len;
+        final boolean usarArray;
+
+        /** Vetor do CBC de cada pedaco, lido antes de qualquer escrita (permite cifrar no lugar). */
+        long[] vetores;
+
+        Trabalho(DesMode modo, boolean cifrar, DesBlockCipher cifra, long estado,
+                 byte[] inArr, int inOff, ByteBuffer inBuf, byte[] outArr, int outOff, ByteBuffer outBuf, int len) {
+            this.modo = modo;
+            this.cifrar = cifrar;
+            this.cifra = cifra;
+            this.estado = estado;
+            this.len = len;
+            if (inBuf != null && inBuf.hasArray() && outBuf.hasArray()) {
+                this.inArr = inBuf.array();
+                this.inOff = inBuf.arrayOffset() + inOff;
+                this.outArr = outBuf.array();
+                this.outOff = outBuf.arrayOffset() + outOff;
+                this.inBuf = null;
+                this.outBuf = null;
+            } else {
+                this.inArr = inArr;
+                this.inOff = inOff;
+                this.outArr = outArr;
+                this.outOff = outOff;
+                this.inBuf = inBuf;
+                this.outBuf = outBuf;
+            }
+            this.usarArray = this.inArr != null;
+        }
+
+        /**
+         * Le os vetores do CBC de cada pedaco e calcula o estado final da cadeia.
+         */
+        long prepararVetores(int pedacos) {
+            switch (modo) {
+                case CTR:
+                    return estado + ((len + 7) >>> 3);
+                case CBC:
+                    vetores = new long[pedacos];
+                    vetores[0] = estado;
+                    for (int i = 1; i < pedacos; i++) {
+                        vetores[i] = lerBloco(i * TAMANHO_PEDACO - 8);
+                    }
+                    return len == 0 ? estado : lerBloco(len - 8);
+                default:
+                    return estado;
+            }
+        }
+
+        void processarPedaco(int i) {
+            int off = i * TAMANHO_PEDACO;
+            int n = Math.min(TAMANHO_PEDACO, len - off);
+            long e = modo == DesMode.CTR ? estado + (off >>> 3) : modo == DesMode.CBC ? vetores[i] : estado;
+            if (usarArray) {
+                DesModes.processar(modo, cifrar, cifra, e, inArr, inOff + off, n, outArr, outOff + off);
+            } else {
+                DesModes.processar(modo, cifrar, cifra, e, inBuf, inOff + off, n, outBuf, outOff + off);
+            }
+        }
+
+        private long lerBloco(int off) {
+            return usarArray ? DesModes.lerLong(inArr, inOff + off) : DesModes.getLong(inBuf, inOff + off);
+        }
+    }
+
+    /**
+     * Divide recursivamente a faixa de pedacos [de, ate) entre as threads do pool.
+     */
+    private static final class Tarefa extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Trabalho trabalho;
+        private final int de, ate;
+
+        Tarefa(Trabalho trabalho, int de, int ate) {
+            this.trabalho = trabalho;
+            this.de = de;
+            this.ate = ate;
+        }
+
+        @Override
+        protected void compute() {
+            if (ate - de == 1) {
+                trabalho.processarPedaco(de);
+            } else {
+                int meio = (de + ate) >>> 1;
+                invokeAll(new Tarefa(trabalho, de, meio), new Tarefa(trabalho, meio, ate));
+            }
+        }
+    }
+}
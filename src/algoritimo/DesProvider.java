@@ -0,0 +1,42 @@
+package algoritimo;
+
+import java.security.Provider;
+
+/**
+ * Provider JCA que expoe este DES por meio de {@link javax.crypto.Cipher}.
+ * <p>
+ * Registra as cifras {@code DES} e {@code DESede} (alias {@code TripleDES}) nos modos
+ * ECB, CBC e CTR, com {@code NoPadding} ou {@code PKCS5Padding}. O engine usado e o
+ * padrao de {@link DesEngineType#padrao()}. Para trocar de provider por configuracao:
+ * <pre>
+ * Security.insertProviderAt(new DesProvider(), 1);
+ * Cipher c = Cipher.getInstance("DES/CBC/PKCS5Padding");
+ * </pre>
+ * ou, sem alterar o codigo, {@code security.provider.1=algoritimo.DesProvider} no arquivo
+ * {@code java.security}. Como o provider nao e assinado, ele so e aceito por JDKs que nao
+ * exigem assinatura de providers JCE (como o OpenJDK).
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesProvider extends Provider {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Nome do provider, para {@code Cipher.getInstance(transformacao, NOME)}. */
+    public static final String NOME = "Algoritimo";
+
+    public DesProvider() {
+        super(NOME, 1.0, "DES e Triple DES (ECB, CBC, CTR; NoPadding, PKCS5Padding)");
+        registrar("DES", DesCipherSpi.Des.class);
+        registrar("DESede", DesCipherSpi.TripleDes.class);
+        put("Alg.Alias.Cipher.TripleDES", "DESede");
+    }
+
+    private void registrar(String algoritmo, Class<?> classe) {
+        put("Cipher." + algoritmo, classe.getName());
+        put("Cipher." + algoritmo + " SupportedModes", "ECB|CBC|CTR");
+        put("Cipher." + algoritmo + " SupportedPaddings", "NOPADDING|PKCS5PADDING");
+        put("Cipher." + algoritmo + " SupportedKeyFormats", "RAW");
+    }
+}
@@ -0,0 +1,104 @@
+package algoritimo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * {@link ReadableByteChannel} que criptografa (ou descriptografa) os bytes lidos do canal
+ * de origem.
+ * <p>
+ * A origem e lida em pedacos para um buffer interno reutilizado e cada pedaco e
+ * processado de uma vez; o padding e tratado quando a origem termina. Se a origem nao
+ * for bloqueante e nao tiver dados, {@link #read} retorna 0.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public class DesReadableChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel canal;
+    private final DesCipher cifra;
+    private final byte[] entrada;
+    private final ByteBuffer bufEntrada;
+    private final byte[] saida;
+    private int pos;
+    private int lim;
+    private boolean fim;
+    private boolean aberto = true;
+
+    /**
+     * @param canal Canal de origem
+     * @param cifra Cifra incremental ja configurada
+     */
+    public DesReadableChannel(ReadableByteChannel canal, DesCipher cifra) {
+        this(canal, cifra, DesOutputStream.TAMANHO_BUFFER);
+    }
+
+    /**
+     * @param canal         Canal de origem
+     * @param cifra         Cifra incremental ja configurada
+     * @param tamanhoBuffer Quantos bytes sao lidos da origem por vez
+     */
+    public DesReadableChannel(ReadableByteChannel canal, DesCipher cifra, int tamanhoBuffer) {
+        if (canal == null || cifra == null || tamanhoBuffer < 8) {
+            throw new IllegalArgumentException("Canal ou cifra nulo, ou buffer menor que um bloco");
+        }
+        this.canal = canal;
+        this.cifra = cifra;
+        this.entrada = new byte[tamanhoBuffer];
+        this.bufEntrada = ByteBuffer.wrap(entrada);
+        this.saida = new byte[tamanhoBuffer + 8];
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!aberto) {
+            throw new ClosedChannelException();
+        }
+        int lidos = 0;
+        while (dst.hasRemaining()) {
+            if (pos == lim) {
+                // com dados ja entregues, nao bloqueia esperando mais da origem
+                if (fim || lidos > 0) {
+                    break;
+                }
+                bufEntrada.clear();
+                int n = canal.read(bufEntrada);
+                if (n == 0) {
+                    break;
+                }
+                pos = 0;
+                if (n < 0) {
+                    fim = true;
+                    try {
+                        lim = cifra.doFinal(saida, 0);
+                    } catch (IllegalArgumentException e) {
+                        lim = 0;
+                        throw new IOException(e.getMessage(), e);
+                    }
+                } else {
+                    lim = cifra.update(entrada, 0, n, saida, 0);
+                }
+                continue;
+            }
+            int n = Math.min(dst.remaining(), lim - pos);
+            dst.put(saida, pos, n);
+            pos += n;
+            lidos += n;
+        }
+        return lidos == 0 && fim && pos == lim ? -1 : lidos;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return aberto;
+    }
+
+    @Override
+    public void close() throws IOException {
+        aberto = false;
+        canal.close();
+    }
+}
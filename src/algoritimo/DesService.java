@@ -0,0 +1,623 @@
+package algoritimo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor TCP de criptografia, para ser usado como sidecar por varios processos que
+ * compartilham chaves.
+ * <p>
+ * Cada conexao e atendida por uma virtual thread quando a JVM as oferece (JDK 21 ou
+ * superior, obtidas por reflexao), ou por um pool de threads sob demanda. As conexoes
+ * apenas leem e respondem: os pedidos vao para uma fila limitada consumida por threads
+ * de trabalho. A fila e limitada em numero de pedidos e em bytes ({@link #LIMITE_BYTES},
+ * reservados antes de ler os dados do pedido); quando um dos limites e atingido a
+ * conexao espera, deixa de ler o socket e o cliente sente a pressao pelo proprio TCP.
+ * <p>
+ * Cada thread de trabalho retira da fila todos os pedidos disponiveis (ate
+ * {@link #TAMANHO_LOTE}) e junta os pedidos pequenos em ECB e CTR com a mesma chave, modo
+ * e sentido em uma unica chamada de {@link DesBlockCipher#encryptBlocks} (ou {@code decryptBlocks}),
+ * aproveitando os engines que processam varios blocos por vez. Pedidos CBC e pedidos
+ * grandes sao processados individualmente por {@link DesModes}.
+ * <p>
+ * Protocolo (inteiros big-endian), um pedido por vez em cada conexao:
+ * <pre>
+ * pedido:   int tamanho, byte operacao (0 criptografar, 1 descriptografar),
+ *           byte modo (0 ECB, 1 CBC, 2 CTR), byte padding (0 NONE, 1 PKCS5),
+ *           long chave, long iv, byte[tamanho] dados
+ * resposta: byte status (0 ok, 1 erro), int tamanho, byte[tamanho] dados ou mensagem (UTF-8)
+ * </pre>
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesService implements AutoCloseable {
+
+    /** Tamanho maximo dos dados de um pedido. */
+    public static final int TAMANHO_MAXIMO = 16 * 1024 * 1024;
+
+    /** Numero maximo de pedidos retirados da fila de uma vez. */
+    public static final int TAMANHO_LOTE = 256;
+
+    /** Pedidos maiores que isto nao sao agrupados. */
+    static final int TAMANHO_AGRUPAVEL = 4096;
+
+    /** Tamanho padrao da fila de pedidos. */
+    public static final int CAPACIDADE_PADRAO = 4096;
+
+    /** Total de bytes de dados de pedidos aceitos e ainda nao respondidos. */
+    public static final int LIMITE_BYTES = 64 * 1024 * 1024;
+
+    static final byte OK = 0;
+    static final byte ERRO = 1;
+
+    private final ServerSocket servidor;
+    private final DesEngineType engine;
+    private final DesKeyScheduleCache chaves = new DesKeyScheduleCache(1024);
+    private final BlockingQueue<Pedido> fila;
+    private final Semaphore bytesLivres = new Semaphore(LIMITE_BYTES);
+    private final ExecutorService conexoes;
+    /** Sockets aceitos e ainda abertos, fechados no {@link #close()}. */
+    private final Set<Socket> clientes = ConcurrentHashMap.newKeySet();
+    private final boolean virtuais;
+    private final Thread[] trabalhadores;
+    private final Thread aceitador;
+    private volatile boolean fechado;
+
+    private final AtomicInteger conexoesAtivas = new AtomicInteger();
+    private final LongAdder pedidos = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final long inicio = System.nanoTime();
+
+    /**
+     * Abre o servidor na interface de loopback.
+     *
+     * @param porta      Porta TCP, ou 0 para escolher uma livre
+     * @param engine     Implementacao usada para as chaves
+     * @param capacidade Tamanho da fila de pedidos
+     * @param threads    Numero de threads de trabalho
+     */
+    public DesService(int porta, DesEngineType engine, int capacidade, int threads) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta), engine, capacidade, threads);
+    }
+
+    /**
+     * @param endereco   Endereco onde o servidor escuta
+     * @param engine     Implementacao usada para as chaves
+     * @param capacidade Tamanho da fila de pedidos
+     * @param threads    Numero de threads de trabalho
+     */
+    public DesService(InetSocketAddress endereco, DesEngineType engine, int capacidade, int threads)
+            throws IOException {
+        if (capacidade < 1 || threads < 1) {
+            throw new IllegalArgumentException("Capacidade e threads devem ser positivos");
+        }
+        this.engine = engine;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.servidor = new ServerSocket();
+        servidor.bind(endereco, 1024);
+
+        ExecutorService virtual = criarExecutorVirtual();
+        this.virtuais = virtual != null;
+        this.conexoes = virtual != null ? virtual : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "des-service-conexao");
+            t.setDaemon(true);
+            return t;
+        });
+
+        this.trabalhadores = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            trabalhadores[i] = new Thread(this::trabalhar, "des-service-" + i);
+            trabalhadores[i].setDaemon(true);
+            trabalhadores[i].start();
+        }
+        this.aceitador = new Thread(this::aceitar, "des-service-aceitador");
+        aceitador.setDaemon(true);
+        aceitador.start();
+    }
+
+    /** @return A porta em que o servidor escuta */
+    public int getPort() {
+        return servidor.getLocalPort();
+    }
+
+    /** @return Se as conexoes sao atendidas por virtual threads */
+    public boolean usesVirtualThreads() {
+        return virtuais;
+    }
+
+    /** @return Pedidos atendidos */
+    public long requestCount() {
+        return pedidos.sum();
+    }
+
+    /** @return Bytes de dados recebidos nos pedidos atendidos */
+    public long byteCount() {
+        return bytes.sum();
+    }
+
+    /** @return Lotes processados pelas threads de trabalho */
+    public long batchCount() {
+        return lotes.sum();
+    }
+
+    /** @return Pedidos respondidos com erro */
+    public long errorCount() {
+        return erros.sum();
+    }
+
+    /** @return Pedidos aguardando na fila */
+    public int queueDepth() {
+        return fila.size();
+    }
+
+    /** @return Bytes de dados de pedidos aceitos e ainda nao respondidos */
+    public int queuedBytes() {
+        return LIMITE_BYTES - bytesLivres.availablePermits();
+    }
+
+    /** @return Conexoes abertas */
+    public int activeConnections() {
+        return conexoesAtivas.get();
+    }
+
+    /**
+     * @return Resumo das estatisticas desde a abertura do servidor
+     */
+    public String stats() {
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long n = requestCount();
+        long l = batchCount();
+        return String.format(Locale.ROOT,
+                "pedidos=%d (%.0f/s) bytes=%d lotes=%d (%.1f pedidos/lote) erros=%d fila=%d (%d bytes) conexoes=%d",
+                n, n / Math.max(segundos, 1e-9), byteCount(), l, l == 0 ? 0.0 : (double) n / l,
+                errorCount(), queueDepth(), queuedBytes(), activeConnections());
+    }
+
+    /**
+     * Fecha o servidor e todas as conexoes. Pedidos ainda na fila sao descartados.
+     */
+    @Override
+    public void close() throws IOException {
+        fechado = true;
+        servidor.close();
+        conexoes.shutdownNow();
+        // sem virtual threads, quem esta bloqueado lendo o socket nao atende a interrupcao
+        for (Socket s : clientes) {
+            fecharSocket(s);
+        }
+        for (Thread t : trabalhadores) {
+            t.interrupt();
+        }
+        Pedido p;
+        while ((p = fila.poll()) != null) {
+            p.resultado.completeExceptionally(new IOException("Servidor fechado"));
+        }
+    }
+
+    private void aceitar() {
+        while (!fechado) {
+            try {
+                Socket socket = servidor.accept();
+                clientes.add(socket);
+                if (fechado) {
+                    // close() pode ter percorrido os clientes antes deste entrar
+                    clientes.remove(socket);
+                    fecharSocket(socket);
+                    return;
+                }
+                socket.setTcpNoDelay(true);
+                conexoes.execute(() -> atender(socket));
+            } catch (IOException e) {
+                if (fechado) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                // executor encerrado durante o fechamento
+                return;
+            }
+        }
+    }
+
+    /**
+     * Le os pedidos de uma conexao e escreve as respostas, ate o cliente fechar.
+     */
+    private void atender(Socket socket) {
+        conexoesAtivas.incrementAndGet();
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (!fechado) {
+                Pedido pedido;
+                try {
+                    pedido = lerPedido(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                byte[] resposta;
+                byte status = OK;
+                try {
+                    if (pedido.erro != null) {
+                        status = ERRO;
+                        resposta = pedido.erro.getBytes(StandardCharsets.UTF_8);
+                    } else {
+                        fila.put(pedido);
+                        try {
+                            resposta = pedido.resultado.get();
+                        } catch (ExecutionException e) {
+                            status = ERRO;
+                            resposta = String.valueOf(e.getCause().getMessage()).getBytes(StandardCharsets.UTF_8);
+                        }
+                    }
+                } finally {
+                    bytesLivres.release(pedido.dados.length);
+                }
+                if (status == ERRO) {
+                    erros.increment();
+                }
+                out.writeByte(status);
+                out.writeInt(resposta.length);
+                out.write(resposta);
+                out.flush();
+            }
+        } catch (SocketException | EOFException e) {
+            // cliente desconectou
+        } catch (IOException e) {
+            // conexao perdida; as demais continuam
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clientes.remove(socket);
+            conexoesAtivas.decrementAndGet();
+        }
+    }
+
+    private static void fecharSocket(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ja fechado pelo cliente
+        }
+    }
+
+    /**
+     * Le um pedido, reservando os bytes dos dados no limite da fila antes de aloca-los.
+     * A reserva e liberada por quem responde o pedido.
+     */
+    private Pedido lerPedido(DataInputStream in) throws IOException, InterruptedException {
+        int tamanho = in.readInt();
+        int operacao = in.readUnsignedByte();
+        int modo = in.readUnsignedByte();
+        int padding = in.readUnsignedByte();
+        long chave = in.readLong();
+        long iv = in.readLong();
+        if (tamanho < 0 || tamanho > TAMANHO_MAXIMO) {
+            throw new IOException("Tamanho de pedido invalido: " + tamanho);
+        }
+        bytesLivres.acquire(tamanho);
+        byte[] dados;
+        try {
+            dados = new byte[tamanho];
+            in.readFully(dados);
+        } catch (IOException | RuntimeException | Error e) {
+            bytesLivres.release(tamanho);
+            throw e;
+        }
+
+        Pedido p = new Pedido(operacao == 0, chave, iv, dados);
+        if (operacao > 1 || modo >= DesMode.values().length || padding >= DesPadding.values().length) {
+            p.erro = "Operacao, modo ou padding invalido";
+        } else {
+            p.modo = DesMode.values()[modo];
+            p.padding = DesPadding.values()[padding];
+        }
+        return p;
+    }
+
+    private void trabalhar() {
+        List<Pedido> lote = new ArrayList<>(TAMANHO_LOTE);
+        while (!fechado) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            fila.drainTo(lote, TAMANHO_LOTE - 1);
+            try {
+                processarLote(lote);
+            } catch (RuntimeException | Error e) {
+                falhar(lote, e);
+            }
+            lotes.increment();
+            lote.clear();
+        }
+    }
+
+    /**
+     * Agrupa os pedidos pequenos em ECB e CTR por chave, modo e sentido, e processa os
+     * demais individualmente.
+     */
+    void processarLote(List<Pedido> lote) {
+        // um mapa por modo e sentido: a mesma chave pode aparecer nos tres
+        Map<Long, Grupo> ecbCifrar = new HashMap<>();
+        Map<Long, Grupo> ecbDecifrar = new HashMap<>();
+        Map<Long, Grupo> ctr = new HashMap<>();
+        for (Pedido p : lote) {
+            pedidos.increment();
+            bytes.add(p.dados.length);
+            if (p.modo == DesMode.CBC || p.dados.length > TAMANHO_AGRUPAVEL) {
+                processarPedido(p);
+                continue;
+            }
+            try {
+                p.verificar();
+            } catch (IllegalArgumentException e) {
+                p.resultado.completeExceptionally(e);
+                continue;
+            }
+            Map<Long, Grupo> grupos = p.modo == DesMode.CTR ? ctr : p.cifrar ? ecbCifrar : ecbDecifrar;
+            Grupo g = grupos.get(p.chave);
+            if (g == null) {
+                g = new Grupo(p.chave, p.modo, p.cifrar);
+                grupos.put(p.chave, g);
+            }
+            g.pedidos.add(p);
+            g.blocos += p.blocos();
+            g.bytes += p.dados.length;
+        }
+        processarGrupos(ecbCifrar);
+        processarGrupos(ecbDecifrar);
+        processarGrupos(ctr);
+    }
+
+    private void processarGrupos(Map<Long, Grupo> grupos) {
+        for (Grupo g : grupos.values()) {
+            processarGrupo(g);
+        }
+    }
+
+    /**
+     * Responde com erro os pedidos ainda sem resposta, para que nenhuma conexao fique
+     * esperando quando o processamento falha.
+     */
+    private static void falhar(List<Pedido> pedidos, Throwable causa) {
+        for (Pedido p : pedidos) {
+            p.resultado.completeExceptionally(causa);
+        }
+    }
+
+    private void processarPedido(Pedido p) {
+        try {
+            DesBlockCipher cifra = engine.criar(chaves.get(p.chave));
+            byte[] saida = new byte[p.cifrar ? DesModes.outputSize(p.padding, p.dados.length) : p.dados.length];
+            int n = p.cifrar ? DesModes.encrypt(p.modo, p.padding, cifra, p.iv, p.dados, 0, p.dados.length, saida, 0)
+                             : DesModes.decrypt(p.modo, p.padding, cifra, p.iv, p.dados, 0, p.dados.length, saida, 0);
+            p.resultado.complete(n == saida.length ? saida : Arrays.copyOf(saida, n));
+        } catch (RuntimeException e) {
+            p.resultado.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Junta os blocos (ou os contadores, no CTR) de todos os pedidos do grupo em um
+     * unico array e cifra tudo em uma chamada, medida em {@link DesMetrics} como uma
+     * operacao do modo do grupo.
+     */
+    private void processarGrupo(Grupo g) {
+        long[] blocos;
+        try {
+            DesBlockCipher cifra = engine.criar(chaves.get(g.chave));
+            boolean medir = DesMetrics.ativo();
+            Object evento = medir ? DesMetrics.iniciar() : null;
+            long inicio = medir ? System.nanoTime() : 0;
+            blocos = new long[g.blocos];
+            int k = 0;
+            for (Pedido p : g.pedidos) {
+                k = p.montar(blocos, k);
+            }
+            // ECB descriptografa com decryptBlocks; CTR e ECB criptografam com encryptBlocks
+            if (g.modo == DesMode.ECB && !g.cifrar) {
+                cifra.decryptBlocks(blocos, 0, blocos.length);
+            } else {
+                cifra.encryptBlocks(blocos, 0, blocos.length);
+            }
+            if (medir) {
+                DesMetrics.concluir(evento, inicio, g.cifrar, g.modo, cifra, g.bytes);
+            }
+        } catch (RuntimeException | Error e) {
+            falhar(g.pedidos, e);
+            return;
+        }
+        int k = 0;
+        for (Pedido p : g.pedidos) {
+            try {
+                p.resultado.complete(p.extrair(blocos, k));
+            } catch (RuntimeException e) {
+                p.resultado.completeExceptionally(e);
+            }
+            k += p.blocos();
+        }
+    }
+
+    /**
+     * Cria o executor de virtual threads do JDK 21 por reflexao, ou retorna {@code null}.
+     */
+    private static ExecutorService criarExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Pedidos de ECB ou CTR com a mesma chave, modo e sentido, processados juntos.
+     */
+    private static final class Grupo {
+
+        final long chave;
+        final DesMode modo;
+        final boolean cifrar;
+        final List<Pedido> pedidos = new ArrayList<>();
+        int blocos;
+        long bytes;
+
+        Grupo(long chave, DesMode modo, boolean cifrar) {
+            this.chave = chave;
+            this.modo = modo;
+            this.cifrar = cifrar;
+        }
+    }
+
+    /**
+     * Um pedido recebido e a resposta que a conexao aguarda.
+     */
+    static final class Pedido {
+
+        final boolean cifrar;
+        final long chave;
+        final long iv;
+        final byte[] dados;
+        DesMode modo;
+        DesPadding padding;
+        String erro;
+        final CompletableFuture<byte[]> resultado = new CompletableFuture<>();
+
+        Pedido(boolean cifrar, long chave, long iv, byte[] dados) {
+            this.cifrar = cifrar;
+            this.chave = chave;
+            this.iv = iv;
+            this.dados = dados;
+        }
+
+        void verificar() {
+            DesModes.verificarPadding(modo, padding);
+            if (modo == DesMode.ECB && (padding == DesPadding.NONE || !cifrar)) {
+                if (!cifrar && padding == DesPadding.PKCS5) {
+                    DesModes.verificarTamanhoComPadding(dados.length);
+                } else {
+                    DesModes.verificarAlinhamento(modo, dados.length);
+                }
+            }
+        }
+
+        /** @return Quantos blocos o pedido ocupa no lote */
+        int blocos() {
+            if (modo == DesMode.ECB && cifrar && padding == DesPadding.PKCS5) {
+                return (dados.length >>> 3) + 1;
+            }
+            return (dados.length + 7) >>> 3;
+        }
+
+        /**
+         * Copia os blocos de entrada (ECB) ou os contadores (CTR) para o lote.
+         *
+         * @return A proxima posicao livre do lote
+         */
+        int montar(long[] lote, int k) {
+            int completos = dados.length & ~7;
+            if (modo == DesMode.CTR) {
+                int n = blocos();
+                for (int i = 0; i < n; i++) {
+                    lote[k++] = iv + i;
+                }
+                return k;
+            }
+            for (int i = 0; i < completos; i += 8) {
+                lote[k++] = DesModes.lerLong(dados, i);
+            }
+            if (cifrar && padding == DesPadding.PKCS5) {
+                lote[k++] = DesModes.blocoComPadding(dados, completos, dados.length - completos);
+            }
+            return k;
+        }
+
+        /**
+         * Monta a resposta a partir dos blocos processados.
+         */
+        byte[] extrair(long[] lote, int k) {
+            if (modo == DesMode.CTR) {
+                byte[] saida = new byte[dados.length];
+                for (int i = 0; i < dados.length; i++) {
+                    saida[i] = (byte) (dados[i] ^ (lote[k + (i >>> 3)] >>> (56 - 8*(i & 7))));
+                }
+                return saida;
+            }
+            int n = blocos();
+            int tamanho = 8 * n;
+            if (!cifrar && padding == DesPadding.PKCS5) {
+                tamanho -= DesModes.tamanhoPadding(lote[k + n - 1]);
+            }
+            byte[] saida = new byte[tamanho];
+            for (int i = 0; i < n; i++) {
+                long b = lote[k + i];
+                for (int j = 0; j < 8 && 8*i + j < tamanho; j++) {
+                    saida[8*i + j] = (byte) (b >>> (56 - 8*j));
+                }
+            }
+            return saida;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int porta = 7443;
+        DesEngineType engine = DesEngineType.INTERLEAVED;
+        int capacidade = CAPACIDADE_PADRAO;
+        int threads = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p":      porta = Integer.parseInt(args[++i]); break;
+                    case "-engine": engine = DesEngineType.valueOf(args[++i].toUpperCase(Locale.ROOT)); break;
+                    case "-q":      capacidade = Integer.parseInt(args[++i]); break;
+                    case "-t":      threads = Integer.parseInt(args[++i]); break;
+                    default:        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Argumento invalido: " + e.getMessage());
+            System.err.println("Uso: java algoritimo.DesService [-p PORTA] [-engine SCALAR|INTERLEAVED|BITSLICED|VECTOR]"
+                               + " [-q FILA] [-t THREADS]");
+            System.exit(1);
+        }
+
+        DesService servico = new DesService(porta, engine, capacidade, threads);
+        System.out.println("--------------- DES -----------------------");
+        System.out.println(" Servico  : 127.0.0.1:" + servico.getPort() + " (" + engine + ", "
+                           + (servico.usesVirtualThreads() ? "virtual threads" : "pool de threads") + ")");
+        while (true) {
+            TimeUnit.SECONDS.sleep(10);
+            System.out.println(" " + servico.stats());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package algoritimo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cliente de {@link DesService}: uma conexao, um pedido por vez.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class DesServiceClient implements AutoCloseable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Conecta ao servico na interface de loopback.
+     */
+    public DesServiceClient(int porta) throws IOException {
+        this(InetAddress.getLoopbackAddress().getHostAddress(), porta);
+    }
+
+    public DesServiceClient(String host, int porta) throws IOException {
+        this.socket = new Socket(host, porta);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * @return Os dados criptografados
+     * @throws IOException se o servico responder com erro
+     */
+    public byte[] encrypt(DesMode modo, DesPadding padding, long chave, long iv, byte[] dados) throws IOException {
+        return enviar(0, modo, padding, chave, iv, dados);
+    }
+
+    /**
+     * @return Os dados descriptografados
+     * @throws IOException se o servico responder com erro (por exemplo, padding invalido)
+     */
+    public byte[] decrypt(DesMode modo, DesPadding padding, long chave, long iv, byte[] dados) throws IOException {
+        return enviar(1, modo, padding, chave, iv, dados);
+    }
+
+    private byte[] enviar(int operacao, DesMode modo, DesPadding padding, long chave, long iv, byte[] dados)
+            throws IOException {
+        out.writeInt(dados.length);
+        out.writeByte(operacao);
+        out.writeByte(modo.ordinal());
+        out.writeByte(padding.ordinal());
+        out.writeLong(chave);
+        out.writeLong(iv);
+        out.write(dados);
+        out.flush();
+
+        byte status = in.readByte();
+        byte[] resposta = new byte[in.readInt()];
+        in.readFully(resposta);
+        if (status != DesService.OK) {
+            throw new IOException(new String(resposta, StandardCharsets.UTF_8));
+        }
+        return resposta;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,109 @@
+package algoritimo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * {@link WritableByteChannel} que criptografa (ou descriptografa) tudo o que e escrito
+ * antes de repassar ao canal de destino.
+ * <p>
+ * Buffers com array acessivel sao processados diretamente; os demais (por exemplo,
+ * diretos) sao copiados em pedacos para um buffer interno reutilizado. O padding e
+ * aplicado (ou verificado) em {@link #close()}. Escritas no destino sao sempre completas,
+ * entao o canal de destino deve ser bloqueante.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public class DesWritableChannel implements WritableByteChannel {
+
+    private final WritableByteChannel canal;
+    private final DesCipher cifra;
+    private final byte[] entrada;
+    private final byte[] saida;
+    private final ByteBuffer bufSaida;
+    private boolean aberto = true;
+
+    /**
+     * @param canal Canal de destino
+     * @param cifra Cifra incremental ja configurada
+     */
+    public DesWritableChannel(WritableByteChannel canal, DesCipher cifra) {
+        this(canal, cifra, DesOutputStream.TAMANHO_BUFFER);
+    }
+
+    /**
+     * @param canal         Canal de destino
+     * @param cifra         Cifra incremental ja configurada
+     * @param tamanhoBuffer Quantos bytes sao processados por vez
+     */
+    public DesWritableChannel(WritableByteChannel canal, DesCipher cifra, int tamanhoBuffer) {
+        if (canal == null || cifra == null || tamanhoBuffer < 8) {
+            throw new IllegalArgumentException("Canal ou cifra nulo, ou buffer menor que um bloco");
+        }
+        this.canal = canal;
+        this.cifra = cifra;
+        this.entrada = new byte[tamanhoBuffer];
+        this.saida = new byte[tamanhoBuffer + 8];
+        this.bufSaida = ByteBuffer.wrap(saida);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!aberto) {
+            throw new ClosedChannelException();
+        }
+        int total = src.remaining();
+        while (src.hasRemaining()) {
+            int n = Math.min(src.remaining(), entrada.length);
+            int gravados;
+            if (src.hasArray()) {
+                gravados = cifra.update(src.array(), src.arrayOffset() + src.position(), n, saida, 0);
+                src.position(src.position() + n);
+            } else {
+                src.get(entrada, 0, n);
+                gravados = cifra.update(entrada, 0, n, saida, 0);
+            }
+            escrever(gravados);
+        }
+        return total;
+    }
+
+    private void escrever(int n) throws IOException {
+        bufSaida.clear().limit(n);
+        while (bufSaida.hasRemaining()) {
+            canal.write(bufSaida);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return aberto;
+    }
+
+    /**
+     * Termina a mensagem (padding) e fecha o canal de destino.
+     *
+     * @throws IOException se a mensagem nao tiver tamanho valido ou o padding for invalido
+     */
+    @Override
+    public void close() throws IOException {
+        if (!aberto) {
+            return;
+        }
+        aberto = false;
+        try {
+            int gravados;
+            try {
+                gravados = cifra.doFinal(saida, 0);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            escrever(gravados);
+        } finally {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package algoritimo;
+/**
+ * Chaves por rodada pre-calculadas para o Triple DES (TDEA) no esquema EDE.
+ * <p>
+ * A criptografia e E(K3, D(K2, E(K1, x))). As 48 chaves por rodada dos tres estagios
+ * sao geradas uma unica vez e guardadas em sequencia, e os pares IP^-1/IP entre os
+ * estagios, que se cancelam, nao sao executados: o custo por bloco fica proximo de
+ * 48 rodadas do DES mais uma unica IP e uma unica IP^-1.
+ * <p>
+ * Com duas chaves (EDE2) K3 = K1. O objeto e imutavel e pode ser compartilhado entre threads.
+ *
+ * @author Andre Luiz de Castro Alves.
+ * @version 1.0
+ */
+public final class TripleDesKeySchedule implements DesBlockCipher {
+
+    private final long k1, k2, k3;
+    private final long[] kn;
+    private final long[] knInverso;
+
+    private TripleDesKeySchedule(DesKeySchedule ks1, DesKeySchedule ks2, DesKeySchedule ks3) {
+        this.k1 = ks1.chave();
+        this.k2 = ks2.chave();
+        this.k3 = ks3.chave();
+
+        // E(K1), D(K2), E(K3)
+        kn = new long[48];
+        System.arraycopy(ks1.kn(), 0, kn, 0, 16);
+        System.arraycopy(ks2.knInverso(), 0, kn, 16, 16);
+        System.arraycopy(ks3.kn(), 0, kn, 32, 16);
+
+        // D(K3), E(K2), D(K1)
+        knInverso = new long[48];
+        System.arraycopy(ks3.knInverso(), 0, knInverso, 0, 16);
+        System.arraycopy(ks2.kn(), 0, knInverso, 16, 16);
+        System.arraycopy(ks1.knInverso(), 0, knInverso, 32, 16);
+    }
+
+    /**
+     * Triple DES com duas chaves (EDE2, K3 = K1).
+     */
+    public static TripleDesKeySchedule of(long k1, long k2) {
+        DesKeySchedule ks1 = DesKeySchedule.of(k1);
+        return new TripleDesKeySchedule(ks1, DesKeySchedule.of(k2), ks1);
+    }
+
+    /**
+     * Triple DES com tres chaves (EDE3).
+     */
+    public static TripleDesKeySchedule of(long k1, long k2, long k3) {
+        return new TripleDesKeySchedule(DesKeySchedule.of(k1), DesKeySchedule.of(k2), DesKeySchedule.of(k3));
+    }
+
+    /**
+     * Triple DES a partir de chaves por rodada ja calculadas (por exemplo, obtidas de um
+     * {@link DesKeyScheduleCache}).
+     */
+    public static TripleDesKeySchedule of(DesKeySchedule ks1, DesKeySchedule ks2, DesKeySchedule ks3) {
+        return new TripleDesKeySchedule(ks1, ks2, ks3);
+    }
+
+    /**
+     * Triple DES a partir de uma chave de 16 bytes (EDE2) ou 24 bytes (EDE3), big-endian.
+     */
+    public static TripleDesKeySchedule of(byte[] chave) {
+        if (chave.length == 16) {
+            return of(DesModes.lerLong(chave, 0), DesModes.lerLong(chave, 8));
+        }
+        if (chave.length == 24) {
+            return of(DesModes.lerLong(chave, 0), DesModes.lerLong(chave, 8), DesModes.lerLong(chave, 16));
+        }
+        throw new IllegalArgumentException("A chave do Triple DES deve ter 16 ou 24 bytes: " + chave.length);
+    }
+
+    /**
+     * @return As chaves K1, K2 e K3 de 64 bits
+     */
+    public long[] chaves() {
+        return new long[] { k1, k2, k3 };
+    }
+
+    @Override
+    public long encrypt(long bloco) {
+        long x = DesEngine.permutacaoInicial(bloco);
+        x = DesEngine.executarRodadas(x, kn, 0);
+        x = DesEngine.executarRodadas(x, kn, 16);
+        x = DesEngine.executarRodadas(x, kn, 32);
+        return DesEngine.permutacaoFinal(x);
+    }
+
+    @Override
+    public long decrypt(long bloco) {
+        long x = DesEngine.permutacaoInicial(bloco);
+        x = DesEngine.executarRodadas(x, knInverso, 0);
+        x = DesEngine.executarRodadas(x, knInverso, 16);
+        x = DesEngine.executarRodadas(x, knInverso, 32);
+        return DesEngine.permutacaoFinal(x);
+    }
+
+    /** 48 chaves por rodada sem copia, para uso interno do pacote. */
+    long[] kn() {
+        return kn;
+    }
+
+    /** 48 chaves por rodada inversas sem copia, para uso interno do pacote. */
+    long[] knInverso() {
+        return knInverso;
+    }
+}